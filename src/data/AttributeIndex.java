@@ -0,0 +1,350 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bitmap index over the categorical fields of the synsets of a dictionary:
+ * pos, domain, sumo, sumotype, non_lexicalized and the presence of sentiment
+ * scores.
+ * <p>
+ * The synsets are numbered densely (in the order of the synsets list of a
+ * RoWordNet object, or by their index in a FrozenRoWordNet) and each value of
+ * each field has the set of the numbers of the synsets having it. A set is
+ * stored as a sorted int array while it holds fewer than one number in 32
+ * (the array is then smaller than a bit set), and as a bit set otherwise.
+ * </p>
+ * <p>
+ * The methods selecting a value return a new BitSet, so that filters are
+ * combined with the BitSet operations, e.g. the nouns of the medicine domain
+ * having a SUMO mapping and not non-lexicalized:
+ *
+ * <pre>
+ * BitSet selection = index.pos(Synset.Type.Noun);
+ * selection.and(index.domain(&quot;medicine&quot;));
+ * selection.and(index.hasSumo());
+ * selection.andNot(index.nonLexicalized());
+ * ArrayList&lt;String&gt; ids = index.getIds(selection);
+ * </pre>
+ * </p>
+ * <p>
+ * The synset numbers, and with them the bitmaps, are fixed when the index
+ * is built, so a new index is needed once synsets are added, removed or
+ * have their fields changed.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class AttributeIndex {
+
+	/**
+	 * A set stored as an array while it holds fewer than one number in
+	 * SPARSE_RATIO.
+	 */
+	static final int						SPARSE_RATIO	= 32;
+
+	/**
+	 * The synset id of each number.
+	 */
+	final String[]							ids;
+
+	final EnumMap<Synset.Type, Bitmap>		pos;
+	final HashMap<String, Bitmap>			domains;
+	final HashMap<String, Bitmap>			sumos;
+	final HashMap<String, Bitmap>			sumotypes;
+	final Bitmap							nonLexicalized;
+	final Bitmap							sentiment;
+	final Bitmap							withDomain;
+	final Bitmap							withSumo;
+
+	/**
+	 * Class constructor. Indexes the synsets of a dictionary, numbered in the
+	 * order of its synsets list.
+	 *
+	 * @param rown
+	 *            the dictionary
+	 */
+	public AttributeIndex(RoWordNet rown) {
+		this(live(rown));
+	}
+
+	/**
+	 * Class constructor. Indexes the synsets of a frozen dictionary, numbered
+	 * by their index in it.
+	 *
+	 * @param frozen
+	 *            the dictionary
+	 */
+	public AttributeIndex(FrozenRoWordNet frozen) {
+		this(all(frozen));
+	}
+
+	private static ArrayList<Synset> live(RoWordNet rown) {
+		ArrayList<Synset> ret = new ArrayList<Synset>(rown.synsets.size());
+		for (Synset s : rown.synsets)
+			if (rown.synsetsMap.get(s.getId()) == s)
+				ret.add(s);
+		return ret;
+	}
+
+	private static ArrayList<Synset> all(FrozenRoWordNet frozen) {
+		ArrayList<Synset> ret = new ArrayList<Synset>(frozen.size());
+		for (int i = 0; i < frozen.size(); i++)
+			ret.add(frozen.getSynset(i));
+		return ret;
+	}
+
+	private AttributeIndex(ArrayList<Synset> synsets) {
+		int n = synsets.size();
+		ids = new String[n];
+
+		EnumMap<Synset.Type, IntList> posLists = new EnumMap<Synset.Type, IntList>(Synset.Type.class);
+		HashMap<String, IntList> domainLists = new HashMap<String, IntList>();
+		HashMap<String, IntList> sumoLists = new HashMap<String, IntList>();
+		HashMap<String, IntList> sumotypeLists = new HashMap<String, IntList>();
+		IntList nonLexicalizedList = new IntList(), sentimentList = new IntList();
+		IntList domainList = new IntList(), sumoList = new IntList();
+		for (int i = 0; i < n; i++) {
+			Synset s = synsets.get(i);
+			ids[i] = s.getId();
+			if (s.getPos() != null) {
+				IntList list = posLists.get(s.getPos());
+				if (list == null)
+					posLists.put(s.getPos(), list = new IntList());
+				list.add(i);
+			}
+			if (s.getDomain() != null) {
+				add(domainLists, s.getDomain(), i);
+				domainList.add(i);
+			}
+			if (s.getSumo() != null) {
+				add(sumoLists, s.getSumo(), i);
+				sumoList.add(i);
+			}
+			if (s.getSumotype() != null)
+				add(sumotypeLists, s.getSumotype(), i);
+			if (s.isNon_lexicalized())
+				nonLexicalizedList.add(i);
+			if (s.getSentiwn_p() != null || s.getSentiwn_n() != null || s.getSentiwn_o() != null)
+				sentimentList.add(i);
+		}
+
+		pos = new EnumMap<Synset.Type, Bitmap>(Synset.Type.class);
+		for (Map.Entry<Synset.Type, IntList> e : posLists.entrySet())
+			pos.put(e.getKey(), new Bitmap(e.getValue(), n));
+		domains = bitmaps(domainLists, n);
+		sumos = bitmaps(sumoLists, n);
+		sumotypes = bitmaps(sumotypeLists, n);
+		nonLexicalized = new Bitmap(nonLexicalizedList, n);
+		sentiment = new Bitmap(sentimentList, n);
+		withDomain = new Bitmap(domainList, n);
+		withSumo = new Bitmap(sumoList, n);
+	}
+
+	private static void add(HashMap<String, IntList> lists, String value, int number) {
+		IntList list = lists.get(value);
+		if (list == null)
+			lists.put(value, list = new IntList());
+		list.add(number);
+	}
+
+	private static HashMap<String, Bitmap> bitmaps(HashMap<String, IntList> lists, int n) {
+		HashMap<String, Bitmap> ret = new HashMap<String, Bitmap>(lists.size() * 4 / 3 + 1);
+		for (Map.Entry<String, IntList> e : lists.entrySet())
+			ret.put(e.getKey(), new Bitmap(e.getValue(), n));
+		return ret;
+	}
+
+	/**
+	 * @return the number of indexed synsets
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @return the set of all the indexed synsets
+	 */
+	public BitSet all() {
+		BitSet ret = new BitSet(ids.length);
+		ret.set(0, ids.length);
+		return ret;
+	}
+
+	/**
+	 * @param pos
+	 *            the POS
+	 * @return the set of the synsets with the given POS
+	 */
+	public BitSet pos(Synset.Type pos) {
+		return toBitSet(this.pos.get(pos));
+	}
+
+	/**
+	 * @param domain
+	 *            the domain
+	 * @return the set of the synsets with the given domain
+	 */
+	public BitSet domain(String domain) {
+		return toBitSet(domains.get(domain));
+	}
+
+	/**
+	 * @param sumo
+	 *            the SUMO concept
+	 * @return the set of the synsets mapped to the given SUMO concept
+	 */
+	public BitSet sumo(String sumo) {
+		return toBitSet(sumos.get(sumo));
+	}
+
+	/**
+	 * @param sumotype
+	 *            the type of the SUMO mapping
+	 * @return the set of the synsets with the given SUMO mapping type
+	 */
+	public BitSet sumotype(String sumotype) {
+		return toBitSet(sumotypes.get(sumotype));
+	}
+
+	/**
+	 * @return the set of the synsets having a domain
+	 */
+	public BitSet hasDomain() {
+		return toBitSet(withDomain);
+	}
+
+	/**
+	 * @return the set of the synsets having a SUMO mapping
+	 */
+	public BitSet hasSumo() {
+		return toBitSet(withSumo);
+	}
+
+	/**
+	 * @return the set of the non-lexicalized synsets
+	 */
+	public BitSet nonLexicalized() {
+		return toBitSet(nonLexicalized);
+	}
+
+	/**
+	 * @return the set of the synsets having at least one sentiment score
+	 *         (sentiwn_p, sentiwn_n or sentiwn_o)
+	 */
+	public BitSet hasSentiment() {
+		return toBitSet(sentiment);
+	}
+
+	/**
+	 * @return the domains present in the index
+	 */
+	public Set<String> getDomains() {
+		return Collections.unmodifiableSet(domains.keySet());
+	}
+
+	/**
+	 * @return the SUMO concepts present in the index
+	 */
+	public Set<String> getSumos() {
+		return Collections.unmodifiableSet(sumos.keySet());
+	}
+
+	/**
+	 * @return the SUMO mapping types present in the index
+	 */
+	public Set<String> getSumotypes() {
+		return Collections.unmodifiableSet(sumotypes.keySet());
+	}
+
+	/**
+	 * Returns the number of synsets of a selection that have a given domain,
+	 * without building the domain's set, e.g. to show the facet counts of a
+	 * selection.
+	 *
+	 * @param selection
+	 *            the selection
+	 * @param domain
+	 *            the domain
+	 * @return the number of synsets of the selection with the given domain
+	 */
+	public int countDomain(BitSet selection, String domain) {
+		Bitmap bitmap = domains.get(domain);
+		return bitmap == null ? 0 : bitmap.countIn(selection);
+	}
+
+	/**
+	 * Returns the ids of the synsets of a selection.
+	 *
+	 * @param selection
+	 *            the selection, as returned by the other methods and combined
+	 *            with the BitSet operations
+	 * @return the ids, in the order of the numbering
+	 */
+	public ArrayList<String> getIds(BitSet selection) {
+		ArrayList<String> ret = new ArrayList<String>(selection.cardinality());
+		for (int i = selection.nextSetBit(0); i >= 0 && i < ids.length; i = selection.nextSetBit(i + 1))
+			ret.add(ids[i]);
+		return ret;
+	}
+
+	/**
+	 * @return the synset id with a given number
+	 */
+	public String getId(int number) {
+		return ids[number];
+	}
+
+	private BitSet toBitSet(Bitmap bitmap) {
+		return bitmap == null ? new BitSet(ids.length) : bitmap.toBitSet(ids.length);
+	}
+
+	/**
+	 * Set of synset numbers: a sorted array when sparse, a bit set otherwise.
+	 */
+	static final class Bitmap {
+		final int[]		numbers;
+		final BitSet	bits;
+
+		Bitmap(IntList list, int n) {
+			if ((long) list.size * SPARSE_RATIO < n) {
+				numbers = Arrays.copyOf(list.data, list.size);
+				bits = null;
+			} else {
+				numbers = null;
+				bits = new BitSet(n);
+				for (int i = 0; i < list.size; i++)
+					bits.set(list.data[i]);
+			}
+		}
+
+		BitSet toBitSet(int n) {
+			if (bits != null)
+				return (BitSet) bits.clone();
+			BitSet ret = new BitSet(n);
+			for (int number : numbers)
+				ret.set(number);
+			return ret;
+		}
+
+		int countIn(BitSet selection) {
+			int count = 0;
+			if (numbers != null) {
+				for (int number : numbers)
+					if (selection.get(number))
+						count++;
+				return count;
+			}
+			BitSet both = (BitSet) bits.clone();
+			both.and(selection);
+			return both.cardinality();
+		}
+	}
+}
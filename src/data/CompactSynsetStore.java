@@ -0,0 +1,731 @@
+package data;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import utils.PerfectHashIndex;
+
+/**
+ * Read-only, struct-of-arrays storage of the synsets of a FrozenRoWordNet.
+ * <p>
+ * Instead of one Synset object with up to four lists and a dozen Strings per
+ * synset, every field is kept in a column indexed by the synset's dense index.
+ * The literals, relations, PWN 2.0 ids and usage examples of the synset with
+ * index i occupy the range [xOffsets[i], xOffsets[i+1]) of their columns.
+ * Repetitive values (literals, senses, relation types, domains, SUMO terms,
+ * sentiment scores etc.) are dictionary-encoded: the columns hold int codes
+ * into a single table of distinct Strings, -1 standing for null. Relation
+ * targets are stored as dense indices, or as negative codes for targets that
+ * are not part of the dictionary.
+ * </p>
+ * <p>
+ * The definitions and usage examples can further be compressed with
+ * compressGlosses(), after which they are kept in a CompressedTextStore and
+ * decoded on demand.
+ * </p>
+ * <p>
+ * The store hands out CompactSynset objects: views that read the columns on
+ * demand instead of holding a copy of the synset's content. They cannot be
+ * modified; use materialize() to obtain an ordinary, independent Synset.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class CompactSynsetStore implements Serializable {
+	private static final long serialVersionUID = -2218465075930617437L;
+
+	static final byte	NON_LEXICALIZED	= 1;
+	static final byte	NO_LITERALS		= 2;
+	static final byte	NO_RELATIONS	= 4;
+	static final byte	NO_USAGE		= 8;
+	static final byte	NO_PWN20		= 16;
+
+	/**
+	 * Relation source code meaning "the id of the synset owning the relation".
+	 */
+	static final int	OWN_ID			= -2;
+
+	private static final Synset.Type[]	TYPES	= Synset.Type.values();
+
+	/**
+	 * Synset ids and their dense indices, shared with the FrozenRoWordNet.
+	 */
+	final String[]					ids;
+	final PerfectHashIndex			indices;
+	final double[]					informationContent;
+
+	/**
+	 * The distinct Strings referred to by the dictionary-encoded columns.
+	 */
+	String[]						strings;
+
+	byte[]							pos;
+	byte[]							flags;
+	String[]						definitions;
+	int[]							stamps, domains, sumos, sumotypes, nls;
+	int[]							sentiwnP, sentiwnN, sentiwnO;
+
+	int[]							literalOffsets, literalWords, literalSenses;
+
+	int[]							relationOffsets, relationTargets, relationTypes;
+	int[]							relationSources, relationSourceLiterals, relationTargetLiterals;
+
+	int[]							pwn20Offsets, pwn20Codes;
+
+	int[]							usageOffsets;
+	String[]						usages;
+
+	/**
+	 * The definitions and usage examples once compressed, null otherwise (the
+	 * definitions and usages arrays are then null): the definition of the
+	 * synset with index i is the text i + usageOffsets[i], followed by its
+	 * usage examples.
+	 */
+	CompressedTextStore				glosses;
+
+	/**
+	 * Class constructor. Copies the content of the given synsets into columns.
+	 *
+	 * @param synsets
+	 *            the synsets, indexed by their dense index
+	 * @param ids
+	 *            the synsets' ids, indexed by their dense index
+	 * @param indices
+	 *            table from the synsets' ids to their dense indices
+	 * @param informationContent
+	 *            the synsets' information content, indexed by their dense index
+	 */
+	CompactSynsetStore(Synset[] synsets, String[] ids, PerfectHashIndex indices, double[] informationContent) {
+		int n = synsets.length;
+		this.ids = ids;
+		this.indices = indices;
+		this.informationContent = informationContent;
+
+		int literalCount = 0, relationCount = 0, pwn20Count = 0, usageCount = 0;
+		for (Synset s : synsets) {
+			literalCount += s.getLiterals() == null ? 0 : s.getLiterals().size();
+			relationCount += s.getRelations() == null ? 0 : s.getRelations().size();
+			pwn20Count += s.getPwn20() == null ? 0 : s.getPwn20().size();
+			usageCount += s.getUsage() == null ? 0 : s.getUsage().size();
+		}
+
+		HashMap<String, Integer> codes = new HashMap<String, Integer>();
+		ArrayList<String> table = new ArrayList<String>();
+
+		this.pos = new byte[n];
+		this.flags = new byte[n];
+		this.definitions = new String[n];
+		this.stamps = new int[n];
+		this.domains = new int[n];
+		this.sumos = new int[n];
+		this.sumotypes = new int[n];
+		this.nls = new int[n];
+		this.sentiwnP = new int[n];
+		this.sentiwnN = new int[n];
+		this.sentiwnO = new int[n];
+		this.literalOffsets = new int[n + 1];
+		this.literalWords = new int[literalCount];
+		this.literalSenses = new int[literalCount];
+		this.relationOffsets = new int[n + 1];
+		this.relationTargets = new int[relationCount];
+		this.relationTypes = new int[relationCount];
+		this.relationSources = new int[relationCount];
+		this.relationSourceLiterals = new int[relationCount];
+		this.relationTargetLiterals = new int[relationCount];
+		this.pwn20Offsets = new int[n + 1];
+		this.pwn20Codes = new int[pwn20Count];
+		this.usageOffsets = new int[n + 1];
+		this.usages = new String[usageCount];
+
+		int literal = 0, relation = 0, pwn = 0, use = 0;
+		for (int i = 0; i < n; i++) {
+			Synset s = synsets[i];
+			Synset.Type type = s.getPos();
+			ArrayList<Literal> literals = s.getLiterals();
+			ArrayList<Relation> relations = s.getRelations();
+			ArrayList<String> pwn20 = s.getPwn20(), usage = s.getUsage();
+			pos[i] = (byte) (type == null ? -1 : type.ordinal());
+			flags[i] = (byte) ((s.isNon_lexicalized() ? NON_LEXICALIZED : 0) | (literals == null ? NO_LITERALS : 0)
+					| (relations == null ? NO_RELATIONS : 0) | (usage == null ? NO_USAGE : 0)
+					| (pwn20 == null ? NO_PWN20 : 0));
+			definitions[i] = s.getDefinition();
+			stamps[i] = encode(s.getStamp(), codes, table);
+			domains[i] = encode(s.getDomain(), codes, table);
+			sumos[i] = encode(s.getSumo(), codes, table);
+			sumotypes[i] = encode(s.getSumotype(), codes, table);
+			nls[i] = encode(s.getNl(), codes, table);
+			sentiwnP[i] = encode(s.getSentiwn_p(), codes, table);
+			sentiwnN[i] = encode(s.getSentiwn_n(), codes, table);
+			sentiwnO[i] = encode(s.getSentiwn_o(), codes, table);
+
+			literalOffsets[i] = literal;
+			if (literals != null)
+				for (Literal l : literals) {
+					literalWords[literal] = encode(l.literal, codes, table);
+					literalSenses[literal] = encode(l.sense, codes, table);
+					literal++;
+				}
+
+			relationOffsets[i] = relation;
+			if (relations != null)
+				for (Relation r : relations) {
+					int target = indices.indexOf(r.targetSynset);
+					relationTargets[relation] = target >= 0 ? target : -2 - encode(r.targetSynset, codes, table);
+					relationTypes[relation] = encode(r.relation, codes, table);
+					relationSources[relation] = r.sourceSynset != null && r.sourceSynset.equals(ids[i]) ? OWN_ID
+							: encode(r.sourceSynset, codes, table);
+					relationSourceLiterals[relation] = encode(r.sourceLiteral, codes, table);
+					relationTargetLiterals[relation] = encode(r.targetLiteral, codes, table);
+					relation++;
+				}
+
+			pwn20Offsets[i] = pwn;
+			if (pwn20 != null)
+				for (String p : pwn20)
+					pwn20Codes[pwn++] = encode(p, codes, table);
+
+			usageOffsets[i] = use;
+			if (usage != null)
+				for (String u : usage)
+					usages[use++] = u;
+		}
+		literalOffsets[n] = literal;
+		relationOffsets[n] = relation;
+		pwn20Offsets[n] = pwn;
+		usageOffsets[n] = use;
+		this.strings = table.toArray(new String[table.size()]);
+	}
+
+	/**
+	 * Moves the definitions and usage examples into a CompressedTextStore.
+	 * Reading them then decompresses a block of texts, unless it is cached.
+	 */
+	void compressGlosses() {
+		if (glosses != null)
+			return;
+		int n = ids.length;
+		String[] texts = new String[n + usages.length];
+		for (int i = 0; i < n; i++) {
+			int t = i + usageOffsets[i];
+			texts[t] = definitions[i];
+			for (int u = usageOffsets[i]; u < usageOffsets[i + 1]; u++)
+				texts[++t] = usages[u];
+		}
+		this.glosses = new CompressedTextStore(texts);
+		this.definitions = null;
+		this.usages = null;
+	}
+
+	/**
+	 * @return true if the definitions and usage examples are compressed
+	 */
+	public boolean areGlossesCompressed() {
+		return glosses != null;
+	}
+
+	/**
+	 * @return the compressed definitions and usage examples, or null if they
+	 *         are not compressed
+	 */
+	public CompressedTextStore getGlosses() {
+		return glosses;
+	}
+
+	private static int encode(String s, HashMap<String, Integer> codes, ArrayList<String> table) {
+		if (s == null)
+			return -1;
+		Integer code = codes.get(s);
+		if (code == null) {
+			code = table.size();
+			codes.put(s, code);
+			table.add(s);
+		}
+		return code;
+	}
+
+	private String decode(int code) {
+		return code < 0 ? null : strings[code];
+	}
+
+	/**
+	 * @return the number of synsets in the store
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return a read-only view of the synset
+	 */
+	public CompactSynset getSynset(int index) {
+		return new CompactSynset(this, index);
+	}
+
+	public String getId(int index) {
+		return ids[index];
+	}
+
+	public Synset.Type getPos(int index) {
+		return pos[index] < 0 ? null : TYPES[pos[index]];
+	}
+
+	public boolean isNonLexicalized(int index) {
+		return (flags[index] & NON_LEXICALIZED) != 0;
+	}
+
+	public String getDefinition(int index) {
+		if (glosses != null)
+			return glosses.get(index + usageOffsets[index]);
+		return definitions[index];
+	}
+
+	public String getStamp(int index) {
+		return decode(stamps[index]);
+	}
+
+	public String getDomain(int index) {
+		return decode(domains[index]);
+	}
+
+	public String getSumo(int index) {
+		return decode(sumos[index]);
+	}
+
+	public String getSumotype(int index) {
+		return decode(sumotypes[index]);
+	}
+
+	public String getNl(int index) {
+		return decode(nls[index]);
+	}
+
+	public String getSentiwn_p(int index) {
+		return decode(sentiwnP[index]);
+	}
+
+	public String getSentiwn_n(int index) {
+		return decode(sentiwnN[index]);
+	}
+
+	public String getSentiwn_o(int index) {
+		return decode(sentiwnO[index]);
+	}
+
+	public double getInformationContent(int index) {
+		return informationContent[index];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the number of literals of the synset
+	 */
+	public int getLiteralCount(int index) {
+		return literalOffsets[index + 1] - literalOffsets[index];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @param literal
+	 *            the position of the literal in the synset's literal list
+	 * @return the literal's word
+	 */
+	public String getLiteral(int index, int literal) {
+		return decode(literalWords[literalOffsets[index] + literal]);
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @param literal
+	 *            the position of the literal in the synset's literal list
+	 * @return the literal's sense
+	 */
+	public String getSense(int index, int literal) {
+		return decode(literalSenses[literalOffsets[index] + literal]);
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the number of relations of the synset
+	 */
+	public int getRelationCount(int index) {
+		return relationOffsets[index + 1] - relationOffsets[index];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @param relation
+	 *            the position of the relation in the synset's relation list
+	 * @return the dense index of the relation's target synset, or -1 if the
+	 *         target is not part of the dictionary
+	 */
+	public int getRelationTargetIndex(int index, int relation) {
+		int target = relationTargets[relationOffsets[index] + relation];
+		return target < 0 ? -1 : target;
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @param relation
+	 *            the position of the relation in the synset's relation list
+	 * @return the id of the relation's target synset
+	 */
+	public String getRelationTarget(int index, int relation) {
+		int target = relationTargets[relationOffsets[index] + relation];
+		return target >= 0 ? ids[target] : decode(-2 - target);
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @param relation
+	 *            the position of the relation in the synset's relation list
+	 * @return the relation's type
+	 */
+	public String getRelationType(int index, int relation) {
+		return decode(relationTypes[relationOffsets[index] + relation]);
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the number of PWN 2.0 ids of the synset
+	 */
+	public int getPwn20Count(int index) {
+		return pwn20Offsets[index + 1] - pwn20Offsets[index];
+	}
+
+	public String getPwn20(int index, int pwn20) {
+		return decode(pwn20Codes[pwn20Offsets[index] + pwn20]);
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the number of usage examples of the synset
+	 */
+	public int getUsageCount(int index) {
+		return usageOffsets[index + 1] - usageOffsets[index];
+	}
+
+	public String getUsage(int index, int usage) {
+		if (glosses != null)
+			return glosses.get(index + usageOffsets[index] + 1 + usage);
+		return usages[usageOffsets[index] + usage];
+	}
+
+	ArrayList<Literal> literals(int index) {
+		if ((flags[index] & NO_LITERALS) != 0)
+			return null;
+		ArrayList<Literal> ret = new ArrayList<Literal>(getLiteralCount(index));
+		for (int l = literalOffsets[index]; l < literalOffsets[index + 1]; l++)
+			ret.add(new Literal(decode(literalWords[l]), decode(literalSenses[l])));
+		return ret;
+	}
+
+	ArrayList<Relation> relations(int index) {
+		if ((flags[index] & NO_RELATIONS) != 0)
+			return null;
+		ArrayList<Relation> ret = new ArrayList<Relation>(getRelationCount(index));
+		for (int r = 0; r < getRelationCount(index); r++) {
+			int e = relationOffsets[index] + r;
+			String source = relationSources[e] == OWN_ID ? ids[index] : decode(relationSources[e]);
+			ret.add(new Relation(source, getRelationTarget(index, r), decode(relationTypes[e]),
+					decode(relationSourceLiterals[e]), decode(relationTargetLiterals[e])));
+		}
+		return ret;
+	}
+
+	ArrayList<String> pwn20(int index) {
+		if ((flags[index] & NO_PWN20) != 0)
+			return null;
+		ArrayList<String> ret = new ArrayList<String>(getPwn20Count(index));
+		for (int p = 0; p < getPwn20Count(index); p++)
+			ret.add(getPwn20(index, p));
+		return ret;
+	}
+
+	ArrayList<String> usage(int index) {
+		if ((flags[index] & NO_USAGE) != 0)
+			return null;
+		ArrayList<String> ret = new ArrayList<String>(getUsageCount(index));
+		for (int u = 0; u < getUsageCount(index); u++)
+			ret.add(getUsage(index, u));
+		return ret;
+	}
+
+	/**
+	 * Returns an ordinary Synset with the content of a stored synset. The
+	 * returned object does not depend on the store and can be modified.
+	 *
+	 * @param index
+	 *            a synset's dense index
+	 * @return the synset
+	 */
+	public Synset materialize(int index) {
+		Synset s = new Synset();
+		s.id = ids[index];
+		s.pos = getPos(index);
+		s.non_lexicalized = isNonLexicalized(index);
+		s.definition = getDefinition(index);
+		s.stamp = getStamp(index);
+		s.domain = getDomain(index);
+		s.sumo = getSumo(index);
+		s.sumotype = getSumotype(index);
+		s.nl = getNl(index);
+		s.sentiwn_p = getSentiwn_p(index);
+		s.sentiwn_n = getSentiwn_n(index);
+		s.sentiwn_o = getSentiwn_o(index);
+		s.informationContent = informationContent[index];
+		s.literals = literals(index);
+		s.relations = relations(index);
+		s.pwn20 = pwn20(index);
+		s.usage = usage(index);
+		return s;
+	}
+
+	/**
+	 * Read-only Synset view over a CompactSynsetStore. The getters read the
+	 * store's columns, the list getters returning new lists on every call;
+	 * the setters throw UnsupportedOperationException. The inherited Synset
+	 * fields are left null: code working on synsets reads them through the
+	 * getters, equals() and hashCode() included, so a view equals the Synset
+	 * it materializes to. A view added to a RoWordNet object (or to a
+	 * RoWordNetTransaction) is stored as its materialized Synset, and it is
+	 * serialized as such.
+	 *
+	 * @author Stefan Dumitrescu
+	 * @author Radu Petrut
+	 */
+	public static final class CompactSynset extends Synset {
+		private static final long serialVersionUID = 6085513829361462305L;
+
+		final transient CompactSynsetStore	store;
+		final transient int					index;
+
+		CompactSynset(CompactSynsetStore store, int index) {
+			this.store = store;
+			this.index = index;
+		}
+
+		/**
+		 * @return the synset's dense index in its store
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * @return an ordinary, modifiable copy of the synset
+		 */
+		public Synset materialize() {
+			return store.materialize(index);
+		}
+
+		@Override
+		public Synset copy() {
+			return materialize();
+		}
+
+		@Override
+		Synset modifiable() {
+			return materialize();
+		}
+
+		private Object writeReplace() throws ObjectStreamException {
+			return materialize();
+		}
+
+		@Override
+		public String getId() {
+			return store.getId(index);
+		}
+
+		@Override
+		public Type getPos() {
+			return store.getPos(index);
+		}
+
+		@Override
+		public boolean isNon_lexicalized() {
+			return store.isNonLexicalized(index);
+		}
+
+		@Override
+		public String getDefinition() {
+			return store.getDefinition(index);
+		}
+
+		@Override
+		public String getStamp() {
+			return store.getStamp(index);
+		}
+
+		@Override
+		public ArrayList<Literal> getLiterals() {
+			return store.literals(index);
+		}
+
+		@Override
+		public ArrayList<Relation> getRelations() {
+			return store.relations(index);
+		}
+
+		@Override
+		RelationGroups getRelationGroups() {
+			RelationGroups groups = relationGroups;
+			if (groups == null) {
+				ArrayList<Relation> list = getRelations();
+				groups = list == null || list.isEmpty() ? RelationGroups.EMPTY : new RelationGroups(this, list);
+				relationGroups = groups;
+			}
+			return groups;
+		}
+
+		@Override
+		public String getDomain() {
+			return store.getDomain(index);
+		}
+
+		@Override
+		public String getSumo() {
+			return store.getSumo(index);
+		}
+
+		@Override
+		public String getSumotype() {
+			return store.getSumotype(index);
+		}
+
+		@Override
+		public String getSentiwn_p() {
+			return store.getSentiwn_p(index);
+		}
+
+		@Override
+		public String getSentiwn_n() {
+			return store.getSentiwn_n(index);
+		}
+
+		@Override
+		public String getSentiwn_o() {
+			return store.getSentiwn_o(index);
+		}
+
+		@Override
+		public String getNl() {
+			return store.getNl(index);
+		}
+
+		@Override
+		public ArrayList<String> getPwn20() {
+			return store.pwn20(index);
+		}
+
+		@Override
+		public ArrayList<String> getUsage() {
+			return store.usage(index);
+		}
+
+		@Override
+		public double getInformationContent() {
+			return store.getInformationContent(index);
+		}
+
+		@Override
+		public void setId(String id) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setPos(Type pos) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setNon_lexicalized(boolean non_lexicalized) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setDefinition(String definition) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setStamp(String stamp) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setLiterals(ArrayList<Literal> literals) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setRelations(ArrayList<Relation> relations) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setDomain(String domain) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setSumo(String sumo) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setSumotype(String sumotype) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setSentiwn_p(String sentiwn_p) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setSentiwn_n(String sentiwn_n) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setSentiwn_o(String sentiwn_o) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setNl(String nl) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setPwn20(ArrayList<String> pwn20) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setUsage(ArrayList<String> usage) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+		@Override
+		public void setInformationContent(double informationContent) {
+			throw new UnsupportedOperationException("Compact synsets are read-only.");
+		}
+
+	}
+}
@@ -0,0 +1,296 @@
+package data;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only sequence of texts (any of which may be null) kept as compressed
+ * UTF-8, decoded on demand. Used by CompactSynsetStore for the definitions
+ * and usage examples, which make up most of a dictionary's characters but are
+ * seldom read.
+ * <p>
+ * The texts are grouped in blocks of TEXTS_PER_BLOCK consecutive texts; each
+ * block is encoded as the UTF-8 bytes of its texts, every one preceded by its
+ * length, and compressed on its own with a Deflater. As a block is too small
+ * for Deflate to find many repetitions in it, all the blocks are compressed
+ * with a preset dictionary built from the words repeated most across the
+ * texts. Reading a text decodes its whole block; the last CACHE_BLOCKS
+ * decoded blocks are kept in an LRU cache, so that reading the texts of
+ * nearby synsets does not decode the same block over and over.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class CompressedTextStore implements Serializable {
+	private static final long				serialVersionUID	= -4723018557260846931L;
+
+	static final int						TEXTS_PER_BLOCK		= 32;
+
+	/**
+	 * Number of decoded blocks kept in the cache.
+	 */
+	static final int						CACHE_BLOCKS		= 64;
+
+	/**
+	 * Maximum size of the preset dictionary, in bytes (Deflate only looks
+	 * 32 KB back).
+	 */
+	static final int						DICTIONARY_SIZE		= 16 * 1024;
+
+	private static final Charset			UTF8				= Charset.forName("UTF-8");
+
+	final int								size;
+
+	/**
+	 * The compressed blocks, block b occupying [blockOffsets[b],
+	 * blockOffsets[b+1]) of data; blockLengths[b] is its decompressed length.
+	 */
+	final byte[]							data;
+	final int[]								blockOffsets;
+	final int[]								blockLengths;
+
+	/**
+	 * The preset dictionary shared by the blocks.
+	 */
+	final byte[]							dictionary;
+
+	/**
+	 * The decoded blocks, least recently used first; rebuilt after
+	 * de-serialization.
+	 */
+	transient LinkedHashMap<Integer, String[]>	cache;
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param texts
+	 *            the texts, any of them possibly null
+	 */
+	public CompressedTextStore(String[] texts) {
+		this.size = texts.length;
+		this.dictionary = buildDictionary(texts);
+		int blocks = (size + TEXTS_PER_BLOCK - 1) / TEXTS_PER_BLOCK;
+		this.blockOffsets = new int[blocks + 1];
+		this.blockLengths = new int[blocks];
+
+		Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+		Buffer raw = new Buffer(), compressed = new Buffer();
+		byte[] chunk = new byte[8192];
+		try {
+			for (int b = 0; b < blocks; b++) {
+				raw.length = 0;
+				for (int t = b * TEXTS_PER_BLOCK; t < Math.min(size, (b + 1) * TEXTS_PER_BLOCK); t++) {
+					if (texts[t] == null) {
+						raw.writeVarint(0);
+						continue;
+					}
+					byte[] bytes = texts[t].getBytes(UTF8);
+					raw.writeVarint(bytes.length + 1);
+					raw.write(bytes, 0, bytes.length);
+				}
+				blockLengths[b] = raw.length;
+
+				deflater.reset();
+				if (dictionary.length > 0)
+					deflater.setDictionary(dictionary);
+				deflater.setInput(raw.bytes, 0, raw.length);
+				deflater.finish();
+				while (!deflater.finished())
+					compressed.write(chunk, 0, deflater.deflate(chunk));
+				blockOffsets[b + 1] = compressed.length;
+			}
+		} finally {
+			deflater.end();
+		}
+		this.data = Arrays.copyOf(compressed.bytes, compressed.length);
+		this.cache = newCache();
+	}
+
+	/**
+	 * Builds the preset dictionary: the words occurring more than once,
+	 * ranked by the number of bytes their repetitions take, the most valuable
+	 * ones last (Deflate encodes the nearer matches in fewer bits).
+	 */
+	private static byte[] buildDictionary(String[] texts) {
+		final HashMap<String, Integer> counts = new HashMap<String, Integer>();
+		for (String text : texts)
+			if (text != null)
+				for (String word : text.split(" "))
+					if (word.length() > 2) {
+						Integer count = counts.get(word);
+						counts.put(word, count == null ? 1 : count + 1);
+					}
+		ArrayList<String> words = new ArrayList<String>();
+		for (Map.Entry<String, Integer> e : counts.entrySet())
+			if (e.getValue() > 1)
+				words.add(e.getKey());
+		Collections.sort(words, new Comparator<String>() {
+			@Override
+			public int compare(String a, String b) {
+				long gain = (long) counts.get(b) * b.length() - (long) counts.get(a) * a.length();
+				return gain != 0 ? Long.signum(gain) : a.compareTo(b);
+			}
+		});
+
+		Buffer ret = new Buffer();
+		ArrayList<byte[]> chosen = new ArrayList<byte[]>();
+		int length = 0;
+		for (String word : words) {
+			byte[] bytes = (word + " ").getBytes(UTF8);
+			if (length + bytes.length > DICTIONARY_SIZE)
+				break;
+			chosen.add(bytes);
+			length += bytes.length;
+		}
+		for (int i = chosen.size() - 1; i >= 0; i--)
+			ret.write(chosen.get(i), 0, chosen.get(i).length);
+		return Arrays.copyOf(ret.bytes, ret.length);
+	}
+
+	private static LinkedHashMap<Integer, String[]> newCache() {
+		return new LinkedHashMap<Integer, String[]>(CACHE_BLOCKS * 4 / 3 + 1, 0.75f, true) {
+			private static final long	serialVersionUID	= 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, String[]> eldest) {
+				return size() > CACHE_BLOCKS;
+			}
+		};
+	}
+
+	/**
+	 * @return the number of texts
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the size of the compressed texts and of the preset dictionary,
+	 *         in bytes
+	 */
+	public int getCompressedSize() {
+		return data.length + dictionary.length;
+	}
+
+	/**
+	 * @return the size of the texts encoded in UTF-8 (with their lengths), in
+	 *         bytes
+	 */
+	public long getUncompressedSize() {
+		long ret = 0;
+		for (int length : blockLengths)
+			ret += length;
+		return ret;
+	}
+
+	/**
+	 * Returns a text.
+	 *
+	 * @param index
+	 *            the text's position
+	 * @return the text
+	 */
+	public String get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Text " + index + " of " + size);
+		int b = index / TEXTS_PER_BLOCK;
+		String[] block;
+		synchronized (cache) {
+			block = cache.get(b);
+		}
+		if (block == null) {
+			block = decode(b);
+			synchronized (cache) {
+				cache.put(b, block);
+			}
+		}
+		return block[index - b * TEXTS_PER_BLOCK];
+	}
+
+	/**
+	 * Decompresses and decodes a block.
+	 */
+	private String[] decode(int b) {
+		byte[] raw = new byte[blockLengths[b]];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(data, blockOffsets[b], blockOffsets[b + 1] - blockOffsets[b]);
+			int length = 0;
+			while (length < raw.length) {
+				int n = inflater.inflate(raw, length, raw.length - length);
+				if (n == 0 && inflater.needsDictionary())
+					inflater.setDictionary(dictionary);
+				else if (n == 0 && (inflater.finished() || inflater.needsInput()))
+					throw new IllegalStateException("Truncated text block " + b);
+				length += n;
+			}
+		} catch (DataFormatException e) {
+			throw new IllegalStateException("Corrupt text block " + b, e);
+		} finally {
+			inflater.end();
+		}
+
+		String[] ret = new String[Math.min(TEXTS_PER_BLOCK, size - b * TEXTS_PER_BLOCK)];
+		int p = 0;
+		for (int t = 0; t < ret.length; t++) {
+			int length = 0, shift = 0, c;
+			do {
+				c = raw[p++];
+				length |= (c & 0x7F) << shift;
+				shift += 7;
+			} while (c < 0);
+			if (length == 0)
+				continue;
+			ret[t] = new String(raw, p, length - 1, UTF8);
+			p += length - 1;
+		}
+		return ret;
+	}
+
+	/**
+	 * Recreates the cache after de-serialization.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		cache = newCache();
+	}
+
+	/**
+	 * Growable array of bytes, used while building the store.
+	 */
+	private static final class Buffer {
+		byte[]	bytes	= new byte[1024];
+		int		length;
+
+		void write(byte[] b, int off, int len) {
+			if (length + len > bytes.length)
+				bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, length + len));
+			System.arraycopy(b, off, bytes, length, len);
+			length += len;
+		}
+
+		void writeVarint(int value) {
+			if (length + 5 > bytes.length)
+				bytes = Arrays.copyOf(bytes, 2 * bytes.length + 5);
+			while ((value & ~0x7F) != 0) {
+				bytes[length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[length++] = (byte) value;
+		}
+	}
+}
@@ -0,0 +1,228 @@
+package data;
+
+import java.util.ArrayList;
+
+/**
+ * Thread-safe dictionary for serving reads while the dictionary is edited.
+ * <p>
+ * The content is an immutable RoWordNetVersion held in a volatile field.
+ * Readers never lock: every read method (or a whole sequence of reads done
+ * on the object returned by snapshot()) works on the version that was
+ * current when it started, which no writer can change. Writers stage their
+ * changes in a Batch and commit it: the batch is applied, under a lock that
+ * only writers take, on top of the current version, and the resulting
+ * version is published with a single volatile write, so readers see either
+ * none or all of a batch's changes.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class ConcurrentRoWordNet {
+
+	private volatile RoWordNetVersion	snapshot;
+
+	private final Object				writeLock	= new Object();
+
+	/**
+	 * Class constructor, creates an empty dictionary.
+	 */
+	public ConcurrentRoWordNet() {
+		this.snapshot = RoWordNetVersion.EMPTY;
+	}
+
+	/**
+	 * Class constructor. The dictionary starts with copies of the synsets of a
+	 * RoWordNet object.
+	 *
+	 * @param rown
+	 *            the initial content
+	 */
+	public ConcurrentRoWordNet(RoWordNet rown) {
+		this.snapshot = RoWordNetVersion.of(rown);
+	}
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param version
+	 *            the initial content
+	 */
+	public ConcurrentRoWordNet(RoWordNetVersion version) {
+		this.snapshot = version;
+	}
+
+	/**
+	 * @return the current version of the dictionary, which never changes;
+	 *         use it to make several reads against the same content
+	 */
+	public RoWordNetVersion snapshot() {
+		return snapshot;
+	}
+
+	public int size() {
+		return snapshot.size();
+	}
+
+	/**
+	 * Returns the synset whose id corresponds to the one passed as argument, or
+	 * null if no such synset is found. The synset must not be modified.
+	 *
+	 * @param id
+	 *            the id of the targeted synset
+	 * @return the synset with the specified id
+	 */
+	public Synset getSynsetById(String id) {
+		return snapshot.getSynsetById(id);
+	}
+
+	/**
+	 * @see RoWordNetVersion#getIdsFromLiteral(Literal)
+	 */
+	public ArrayList<String> getIdsFromLiteral(Literal literal) {
+		return snapshot.getIdsFromLiteral(literal);
+	}
+
+	/**
+	 * @see RoWordNetVersion#getSynsetsFromLiteral(Literal)
+	 */
+	public ArrayList<Synset> getSynsetsFromLiteral(Literal literal) {
+		return snapshot.getSynsetsFromLiteral(literal);
+	}
+
+	/**
+	 * @see RoWordNetVersion#getRelatedSynsetIds(String, String)
+	 */
+	public ArrayList<String> getRelatedSynsetIds(String synsetId, String relation) {
+		return snapshot.getRelatedSynsetIds(synsetId, relation);
+	}
+
+	/**
+	 * @return a new, empty batch of changes for this dictionary
+	 */
+	public Batch newBatch() {
+		return new Batch();
+	}
+
+	/**
+	 * Applies a batch of changes to the current version and publishes the
+	 * result. Concurrent commits are serialized; readers are not blocked.
+	 *
+	 * @param batch
+	 *            the changes
+	 * @return the published version
+	 */
+	public RoWordNetVersion commit(Batch batch) {
+		synchronized (writeLock) {
+			RoWordNetVersion version = snapshot;
+			for (int i = 0; i < batch.synsets.size(); i++) {
+				Synset s = batch.synsets.get(i);
+				if (s == null)
+					version = version.withoutSynset(batch.ids.get(i));
+				else if (batch.overwrite.get(i) || !version.containsSynset(s.getId()))
+					version = version.withOwnedSynset(s);
+			}
+			snapshot = version;
+			return version;
+		}
+	}
+
+	/**
+	 * Adds a given synset to the dictionary and publishes the change, with the
+	 * same meaning as RoWordNet.addSynset().
+	 *
+	 * @param synset
+	 *            Synset to be added; a copy of it is stored
+	 * @param overwrite
+	 *            boolean specifying if the new synset should overwrite old
+	 *            synset, if existing
+	 * @return true if the synset was added, false if it was not (only happens
+	 *         when the overwrite flag is false and there is a previously
+	 *         existing synset that will not be overwritten)
+	 */
+	public boolean addSynset(Synset synset, boolean overwrite) {
+		Synset s = synset.copy();
+		synchronized (writeLock) {
+			RoWordNetVersion version = snapshot;
+			if (!overwrite && version.containsSynset(s.getId()))
+				return false;
+			snapshot = version.withOwnedSynset(s);
+			return true;
+		}
+	}
+
+	/**
+	 * Removes the synset having a given id and publishes the change.
+	 *
+	 * @param id
+	 *            the synset's id
+	 * @return true if the synset existed
+	 */
+	public boolean removeSynset(String id) {
+		synchronized (writeLock) {
+			RoWordNetVersion version = snapshot;
+			snapshot = version.withoutSynset(id);
+			return snapshot != version;
+		}
+	}
+
+	/**
+	 * Ordered list of changes to be committed together. A batch is not
+	 * thread-safe: it is meant to be filled by a single writer. The added
+	 * synsets are copied when staged, so the staging costs nothing under the
+	 * commit lock.
+	 *
+	 * @author Stefan Dumitrescu
+	 * @author Radu Petrut
+	 */
+	public static final class Batch {
+		/**
+		 * The staged synsets; null marks the removal of ids.get(i).
+		 */
+		final ArrayList<Synset>		synsets		= new ArrayList<Synset>();
+		final ArrayList<String>		ids			= new ArrayList<String>();
+		final ArrayList<Boolean>	overwrite	= new ArrayList<Boolean>();
+
+		Batch() {
+		}
+
+		/**
+		 * Stages the addition of a synset.
+		 *
+		 * @param synset
+		 *            Synset to be added; a copy of it is staged
+		 * @param overwrite
+		 *            boolean specifying if the new synset should overwrite
+		 *            old synset, if existing when the batch is committed
+		 * @return this batch
+		 */
+		public Batch addSynset(Synset synset, boolean overwrite) {
+			Synset s = synset.copy();
+			synsets.add(s);
+			ids.add(s.getId());
+			this.overwrite.add(overwrite);
+			return this;
+		}
+
+		/**
+		 * Stages the removal of a synset.
+		 *
+		 * @param id
+		 *            the synset's id
+		 * @return this batch
+		 */
+		public Batch removeSynset(String id) {
+			synsets.add(null);
+			ids.add(id);
+			overwrite.add(Boolean.FALSE);
+			return this;
+		}
+
+		/**
+		 * @return the number of staged changes
+		 */
+		public int size() {
+			return synsets.size();
+		}
+	}
+}
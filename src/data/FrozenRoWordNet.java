@@ -0,0 +1,569 @@
+package data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+
+import utils.PerfectHashIndex;
+
+/**
+ * Immutable, int-indexed snapshot of a RoWordNet object, meant for
+ * traversal-heavy workloads.
+ * <p>
+ * Every synset is assigned a dense index in [0, size()) and the relations are
+ * stored in compressed-sparse-row form: the outgoing edges of the synset with
+ * index i occupy the positions [relationOffsets[i], relationOffsets[i+1]) of
+ * the relationTargets and relationTypes arrays, in the order of the synset's
+ * relation list.
+ * </p>
+ * <p>
+ * Relations whose target synset is not part of the dictionary are dropped.
+ * The snapshot does not follow later changes made to the RoWordNet object it
+ * was built from; build a new one after editing the dictionary.
+ * </p>
+ * <p>
+ * A snapshot created with compact() keeps no Synset objects: the synsets'
+ * content is moved to a CompactSynsetStore and getSynset() returns read-only
+ * views over it.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class FrozenRoWordNet implements Serializable {
+	private static final long serialVersionUID = 4265703374589306622L;
+
+	/**
+	 * Synset ids, indexed by the synsets' dense index.
+	 */
+	String[]					ids;
+
+	/**
+	 * The synsets themselves, indexed by their dense index; null in compact
+	 * mode.
+	 */
+	Synset[]					synsets;
+
+	/**
+	 * Column storage of the synsets in compact mode, null otherwise.
+	 */
+	CompactSynsetStore			store;
+
+	/**
+	 * Minimal perfect hash table from the synsets' ids to their dense index,
+	 * verifying the matches against the ids array.
+	 */
+	PerfectHashIndex			indices;
+
+	/**
+	 * Start of each synset's edge range; has size() + 1 elements.
+	 */
+	int[]						relationOffsets;
+
+	/**
+	 * Dense index of each edge's target synset.
+	 */
+	int[]						relationTargets;
+
+	/**
+	 * Relation code of each edge.
+	 */
+	int[]						relationTypes;
+
+	/**
+	 * Incoming edges, in the same compressed-sparse-row form as the outgoing
+	 * ones: the edges pointing at the synset with index i occupy the positions
+	 * [incomingOffsets[i], incomingOffsets[i+1]) of the incomingSources and
+	 * incomingTypes arrays, ordered by their source synset's index.
+	 */
+	int[]						incomingOffsets;
+	int[]						incomingSources;
+	int[]						incomingTypes;
+
+	/**
+	 * Relation names, indexed by their code.
+	 */
+	String[]					relationNames;
+
+	/**
+	 * A HashMap containing (key, value) entries, where key is a relation name
+	 * and value is its code.
+	 */
+	HashMap<String, Integer>	relationCodes;
+
+	/**
+	 * Information content of each synset, indexed by the synset's dense index.
+	 */
+	double[]					informationContent;
+
+	/**
+	 * SentiWordNet scores of each synset, parsed once from the synsets' String
+	 * values and indexed by the synset's dense index; NaN where a synset has
+	 * no (valid) score.
+	 */
+	float[]						sentimentPositive;
+	float[]						sentimentNegative;
+	float[]						sentimentObjective;
+
+	/**
+	 * Class constructor. Builds the snapshot from the current content of a
+	 * RoWordNet object.
+	 *
+	 * @param rown
+	 *            the dictionary to be frozen
+	 */
+	public FrozenRoWordNet(RoWordNet rown) {
+		int n = rown.synsets.size();
+		ArrayList<Synset> unique = new ArrayList<Synset>(n);
+		// the synset an id resolves to, as in RoWordNet.getSynsetById()
+		for (Synset s : rown.synsets)
+			if (rown.synsetsMap.get(s.getId()) == s)
+				unique.add(s);
+
+		n = unique.size();
+		this.ids = new String[n];
+		for (int i = 0; i < n; i++)
+			ids[i] = unique.get(i).getId();
+		this.indices = new PerfectHashIndex(ids);
+		this.synsets = new Synset[n];
+		this.informationContent = new double[n];
+		this.sentimentPositive = new float[n];
+		this.sentimentNegative = new float[n];
+		this.sentimentObjective = new float[n];
+		this.relationOffsets = new int[n + 1];
+		this.relationCodes = new HashMap<String, Integer>();
+		ArrayList<String> names = new ArrayList<String>();
+
+		int edges = 0;
+		for (int i = 0; i < n; i++) {
+			Synset s = unique.get(i);
+			synsets[i] = s;
+			informationContent[i] = s.getInformationContent();
+			sentimentPositive[i] = parseScore(s.getSentiwn_p());
+			sentimentNegative[i] = parseScore(s.getSentiwn_n());
+			sentimentObjective[i] = parseScore(s.getSentiwn_o());
+			if (s.getRelations() != null)
+				for (Relation r : s.getRelations())
+					if (indices.indexOf(r.targetSynset) >= 0)
+						edges++;
+		}
+
+		this.relationTargets = new int[edges];
+		this.relationTypes = new int[edges];
+		int edge = 0;
+		for (int i = 0; i < n; i++) {
+			relationOffsets[i] = edge;
+			if (synsets[i].getRelations() == null)
+				continue;
+			for (Relation r : synsets[i].getRelations()) {
+				int target = indices.indexOf(r.targetSynset);
+				if (target < 0)
+					continue;
+				Integer code = relationCodes.get(r.relation);
+				if (code == null) {
+					code = names.size();
+					relationCodes.put(r.relation, code);
+					names.add(r.relation);
+				}
+				relationTargets[edge] = target;
+				relationTypes[edge] = code;
+				edge++;
+			}
+		}
+		relationOffsets[n] = edge;
+		this.relationNames = names.toArray(new String[names.size()]);
+
+		// transposed graph, counting sort on the target index
+		this.incomingOffsets = new int[n + 1];
+		this.incomingSources = new int[edges];
+		this.incomingTypes = new int[edges];
+		for (int e = 0; e < edges; e++)
+			incomingOffsets[relationTargets[e] + 1]++;
+		for (int i = 0; i < n; i++)
+			incomingOffsets[i + 1] += incomingOffsets[i];
+		int[] fill = incomingOffsets.clone();
+		for (int i = 0; i < n; i++)
+			for (int e = relationOffsets[i]; e < relationOffsets[i + 1]; e++) {
+				int pos = fill[relationTargets[e]]++;
+				incomingSources[pos] = i;
+				incomingTypes[pos] = relationTypes[e];
+			}
+	}
+
+	/**
+	 * Builds a compact snapshot of a RoWordNet object: besides the int-indexed
+	 * relations, the synsets' content is copied into a CompactSynsetStore, so
+	 * the snapshot keeps no reference to the dictionary's Synset objects.
+	 *
+	 * @param rown
+	 *            the dictionary to be frozen
+	 * @return the compact snapshot
+	 */
+	public static FrozenRoWordNet compact(RoWordNet rown) {
+		return compact(rown, false);
+	}
+
+	/**
+	 * Builds a compact snapshot of a RoWordNet object, optionally keeping the
+	 * definitions and usage examples compressed (see CompressedTextStore):
+	 * they then take a fraction of their memory, at the cost of decompressing
+	 * a block of them when one is read and the block is not cached.
+	 *
+	 * @param rown
+	 *            the dictionary to be frozen
+	 * @param compressGlosses
+	 *            whether to compress the definitions and usage examples
+	 * @return the compact snapshot
+	 */
+	public static FrozenRoWordNet compact(RoWordNet rown, boolean compressGlosses) {
+		FrozenRoWordNet frozen = new FrozenRoWordNet(rown);
+		frozen.store = new CompactSynsetStore(frozen.synsets, frozen.ids, frozen.indices, frozen.informationContent);
+		frozen.synsets = null;
+		if (compressGlosses)
+			frozen.store.compressGlosses();
+		return frozen;
+	}
+
+	/**
+	 * @return true if the snapshot stores its synsets in a CompactSynsetStore
+	 */
+	public boolean isCompact() {
+		return store != null;
+	}
+
+	/**
+	 * @return the column storage of the synsets, or null if the snapshot is
+	 *         not compact
+	 */
+	public CompactSynsetStore getCompactStore() {
+		return store;
+	}
+
+	/**
+	 * Parses a SentiWordNet score, returning NaN for missing or malformed
+	 * values.
+	 */
+	private static float parseScore(String score) {
+		if (score == null)
+			return Float.NaN;
+		try {
+			return Float.parseFloat(score.trim());
+		} catch (NumberFormatException e) {
+			return Float.NaN;
+		}
+	}
+
+	/**
+	 * @return the number of synsets in the snapshot
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * Returns the dense index of a synset.
+	 *
+	 * @param id
+	 *            the synset's id
+	 * @return the synset's dense index, or -1 if no synset has the given id
+	 */
+	public int getIndex(String id) {
+		return indices.indexOf(id);
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the synset's id
+	 */
+	public String getId(int index) {
+		return ids[index];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the synset with the given dense index
+	 */
+	public Synset getSynset(int index) {
+		return store != null ? store.getSynset(index) : synsets[index];
+	}
+
+	/**
+	 * Returns the synset whose id corresponds to the one passed as argument, or
+	 * null if no such synset is found.
+	 *
+	 * @param id
+	 *            the id of the targeted synset
+	 * @return the synset with the specified id
+	 */
+	public Synset getSynsetById(String id) {
+		int index = getIndex(id);
+		return index < 0 ? null : getSynset(index);
+	}
+
+	/**
+	 * Returns the synsets with the given ids.
+	 *
+	 * @param ids
+	 *            the ids of the targeted synsets
+	 * @return the synsets, in the order of the ids; null for the ids of no
+	 *         synset
+	 */
+	public Synset[] getSynsetsFromIds(Collection<String> ids) {
+		Synset[] ret = new Synset[ids.size()];
+		int i = 0;
+		for (String id : ids)
+			ret[i++] = getSynsetById(id);
+		return ret;
+	}
+
+	/**
+	 * Returns the synsets with the given ids.
+	 *
+	 * @see getSynsetsFromIds(Collection)
+	 */
+	public Synset[] getSynsetsFromIds(String[] ids) {
+		Synset[] ret = new Synset[ids.length];
+		for (int i = 0; i < ids.length; i++)
+			ret[i] = getSynsetById(ids[i]);
+		return ret;
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the information content of the synset
+	 */
+	public double getInformationContent(int index) {
+		return informationContent[index];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the positive SentiWordNet score of the synset, or NaN if it has
+	 *         none
+	 */
+	public float getSentimentPositive(int index) {
+		return sentimentPositive[index];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the negative SentiWordNet score of the synset, or NaN if it has
+	 *         none
+	 */
+	public float getSentimentNegative(int index) {
+		return sentimentNegative[index];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the objective SentiWordNet score of the synset, or NaN if it has
+	 *         none
+	 */
+	public float getSentimentObjective(int index) {
+		return sentimentObjective[index];
+	}
+
+	/**
+	 * @return the number of distinct relation types in the snapshot
+	 */
+	public int getRelationTypeCount() {
+		return relationNames.length;
+	}
+
+	/**
+	 * Returns the code assigned to a relation type.
+	 *
+	 * @param relation
+	 *            the relation's name
+	 * @return the relation's code, or -1 if no edge has the given type
+	 */
+	public int getRelationCode(String relation) {
+		Integer code = relationCodes.get(relation);
+		return code == null ? -1 : code;
+	}
+
+	/**
+	 * @param code
+	 *            a relation code
+	 * @return the name of the relation with the given code
+	 */
+	public String getRelationName(int code) {
+		return relationNames[code];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the position of the synset's first outgoing edge
+	 */
+	public int getRelationsStart(int index) {
+		return relationOffsets[index];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the position following the synset's last outgoing edge
+	 */
+	public int getRelationsEnd(int index) {
+		return relationOffsets[index + 1];
+	}
+
+	/**
+	 * @param edge
+	 *            an edge position
+	 * @return the dense index of the edge's target synset
+	 */
+	public int getRelationTarget(int edge) {
+		return relationTargets[edge];
+	}
+
+	/**
+	 * @param edge
+	 *            an edge position
+	 * @return the relation code of the edge
+	 */
+	public int getRelationType(int edge) {
+		return relationTypes[edge];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the position of the first edge pointing at the synset
+	 */
+	public int getIncomingStart(int index) {
+		return incomingOffsets[index];
+	}
+
+	/**
+	 * @param index
+	 *            a synset's dense index
+	 * @return the position following the last edge pointing at the synset
+	 */
+	public int getIncomingEnd(int index) {
+		return incomingOffsets[index + 1];
+	}
+
+	/**
+	 * @param edge
+	 *            an incoming edge position
+	 * @return the dense index of the edge's source synset
+	 */
+	public int getIncomingSource(int edge) {
+		return incomingSources[edge];
+	}
+
+	/**
+	 * @param edge
+	 *            an incoming edge position
+	 * @return the relation code of the edge
+	 */
+	public int getIncomingType(int edge) {
+		return incomingTypes[edge];
+	}
+
+	/**
+	 * Returns the dense indices of the synsets that point at a reference synset
+	 * through the relation specified by the 'relation' argument.
+	 *
+	 * @param index
+	 *            the dense index of the reference synset
+	 * @param relation
+	 *            the relation's name, or "*" for any relation
+	 * @return the dense indices of the synsets pointing at the reference one
+	 */
+	public int[] getIncomingIndices(int index, String relation) {
+		return select(incomingOffsets[index], incomingOffsets[index + 1], incomingSources, incomingTypes, relation);
+	}
+
+	/**
+	 * Returns the dense indices of the synsets that relate with a reference
+	 * synset in a manner specified by the 'relation' argument.
+	 *
+	 * @param index
+	 *            the dense index of the reference synset
+	 * @param relation
+	 *            the relation's name, or "*" for any relation
+	 * @return the dense indices of the related synsets
+	 */
+	public int[] getRelatedIndices(int index, String relation) {
+		return select(relationOffsets[index], relationOffsets[index + 1], relationTargets, relationTypes, relation);
+	}
+
+	/**
+	 * Collects the ends of the edges in [start, end) having a given relation
+	 * type ("*" for any).
+	 */
+	private int[] select(int start, int end, int[] ends, int[] types, String relation) {
+		if ("*".equals(relation)) {
+			int[] ret = new int[end - start];
+			System.arraycopy(ends, start, ret, 0, ret.length);
+			return ret;
+		}
+
+		int code = getRelationCode(relation), count = 0;
+		for (int e = start; e < end; e++)
+			if (types[e] == code)
+				count++;
+		int[] ret = new int[count];
+		count = 0;
+		for (int e = start; e < end; e++)
+			if (types[e] == code)
+				ret[count++] = ends[e];
+		return ret;
+	}
+
+	/**
+	 * Returns an ArrayList of String objects that represent the ids of the
+	 * synsets that relate with a reference synset in a manner specified by the
+	 * 'relation' argument.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @param relation
+	 *            the relation's name, or "*" for any relation
+	 * @return the ids of the synsets that satisfy the given relation with the
+	 *         reference synset; an empty list if no synset has the given id
+	 */
+	public ArrayList<String> getRelatedSynsetIds(String synsetId, String relation) {
+		int index = getIndex(synsetId);
+		if (index < 0)
+			return new ArrayList<String>();
+		int[] related = getRelatedIndices(index, relation);
+		ArrayList<String> ret = new ArrayList<String>(related.length);
+		for (int end : related)
+			ret.add(ids[end]);
+		return ret;
+	}
+
+	/**
+	 * Returns an ArrayList of String objects that represent the ids of the
+	 * synsets that point at a reference synset through the relation specified
+	 * by the 'relation' argument.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @param relation
+	 *            the relation's name, or "*" for any relation
+	 * @return the ids of the synsets pointing at the reference synset; an
+	 *         empty list if no synset has the given id
+	 */
+	public ArrayList<String> getIncomingSynsetIds(String synsetId, String relation) {
+		int index = getIndex(synsetId);
+		if (index < 0)
+			return new ArrayList<String>();
+		int[] related = getIncomingIndices(index, relation);
+		ArrayList<String> ret = new ArrayList<String>(related.length);
+		for (int end : related)
+			ret.add(ids[end]);
+		return ret;
+	}
+}
@@ -0,0 +1,517 @@
+package data;
+
+import io.IO;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.PriorityQueue;
+
+import utils.RomanianNormalizer;
+import utils.StopWord;
+import utils.Tokenizer;
+
+/**
+ * Inverted index over the glosses (definition and usage examples) of the
+ * synsets of a dictionary, with BM25 ranking.
+ * <p>
+ * Each synset with a gloss is a document, identified by a dense number (its
+ * position in the ids array). The gloss is tokenized with
+ * Tokenizer.tokenizeSentence(), the tokens are normalized with
+ * RomanianNormalizer.normalize() and, optionally, the stop-words are left
+ * out. For every term, the postings (document number, term frequency) are
+ * kept in increasing document order, the document numbers stored as gaps, and
+ * both values are encoded as variable-length integers in one shared byte
+ * array, so most postings take two bytes.
+ * </p>
+ * <p>
+ * Glosses edited or synsets added after the index was built are not
+ * searched until the index is rebuilt. Being serializable, the index can be
+ * saved next to the dictionary with serializeToFile() and loaded back
+ * instead of tokenizing every gloss again.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class GlossIndex implements Serializable {
+	private static final long			serialVersionUID	= 2873409857123054183L;
+
+	/**
+	 * BM25 parameters: term frequency saturation and length normalization.
+	 */
+	static final double					K1					= 1.2, B = 0.75;
+
+	/**
+	 * The synset id of each document.
+	 */
+	String[]							ids;
+
+	/**
+	 * The number of indexed tokens of each document.
+	 */
+	int[]								lengths;
+	double								averageLength;
+
+	/**
+	 * The terms, in order of their first occurrence, and for each term the
+	 * number of documents containing it and the start of its postings in the
+	 * postings array (the postings of term t end where the ones of t + 1
+	 * start).
+	 */
+	String[]							terms;
+	int[]								documentFrequencies;
+	int[]								offsets;
+	byte[]								postings;
+
+	boolean								stopWordsRemoved;
+
+	/**
+	 * Number of each term, rebuilt after de-serialization.
+	 */
+	transient HashMap<String, Integer>	termIds;
+
+	/**
+	 * Class constructor. Builds the index of the glosses of a dictionary,
+	 * stop-words included.
+	 *
+	 * @param rown
+	 *            the dictionary
+	 */
+	public GlossIndex(RoWordNet rown) {
+		build(rown);
+	}
+
+	/**
+	 * Class constructor. Builds the index of the glosses of a dictionary.
+	 *
+	 * @param rown
+	 *            the dictionary
+	 * @param removeStopWords
+	 *            if true, stop-words are neither indexed nor searched
+	 * @throws IOException
+	 *             if removeStopWords is true and the stop-word list cannot be
+	 *             read
+	 */
+	public GlossIndex(RoWordNet rown, boolean removeStopWords) throws IOException {
+		if (removeStopWords)
+			StopWord.isStopWord(""); // loads the list
+		this.stopWordsRemoved = removeStopWords;
+		build(rown);
+	}
+
+	private void build(RoWordNet rown) {
+		ArrayList<String> docIds = new ArrayList<String>();
+		IntList docLengths = new IntList();
+		ArrayList<String> termList = new ArrayList<String>();
+		termIds = new HashMap<String, Integer>();
+		// per term: document numbers and frequencies, interleaved
+		ArrayList<IntList> lists = new ArrayList<IntList>();
+		long totalLength = 0;
+
+		int[] frequencies = new int[0];
+		IntList docTerms = new IntList();
+		for (Synset s : rown.synsets) {
+			if (rown.synsetsMap.get(s.getId()) != s)
+				continue;
+			ArrayList<String> tokens = tokenize(gloss(s));
+			if (tokens.isEmpty())
+				continue;
+			int doc = docIds.size();
+			docIds.add(s.getId());
+			docLengths.add(tokens.size());
+			totalLength += tokens.size();
+
+			docTerms.size = 0;
+			for (String token : tokens) {
+				Integer term = termIds.get(token);
+				if (term == null) {
+					term = termList.size();
+					termIds.put(token, term);
+					termList.add(token);
+					lists.add(new IntList());
+					if (term >= frequencies.length)
+						frequencies = Arrays.copyOf(frequencies, Math.max(16, 2 * frequencies.length));
+				}
+				if (frequencies[term]++ == 0)
+					docTerms.add(term);
+			}
+			for (int i = 0; i < docTerms.size; i++) {
+				int term = docTerms.data[i];
+				IntList list = lists.get(term);
+				list.add(doc);
+				list.add(frequencies[term]);
+				frequencies[term] = 0;
+			}
+		}
+
+		ids = docIds.toArray(new String[docIds.size()]);
+		lengths = docLengths.toArray();
+		averageLength = ids.length == 0 ? 0 : (double) totalLength / ids.length;
+		terms = termList.toArray(new String[termList.size()]);
+		documentFrequencies = new int[terms.length];
+		offsets = new int[terms.length + 1];
+
+		ByteList bytes = new ByteList();
+		for (int t = 0; t < terms.length; t++) {
+			offsets[t] = bytes.size;
+			IntList list = lists.get(t);
+			int previous = -1;
+			for (int i = 0; i < list.size; i += 2) {
+				bytes.writeVarInt(list.data[i] - previous);
+				bytes.writeVarInt(list.data[i + 1]);
+				previous = list.data[i];
+			}
+			documentFrequencies[t] = list.size / 2;
+			lists.set(t, null);
+		}
+		offsets[terms.length] = bytes.size;
+		postings = Arrays.copyOf(bytes.data, bytes.size);
+	}
+
+	/**
+	 * @return the text indexed for a synset: its definition followed by its
+	 *         usage examples
+	 */
+	static String gloss(Synset s) {
+		StringBuilder sb = new StringBuilder();
+		if (s.getDefinition() != null)
+			sb.append(s.getDefinition());
+		if (s.getUsage() != null)
+			for (String usage : s.getUsage())
+				if (usage != null)
+					sb.append(' ').append(usage);
+		return sb.toString();
+	}
+
+	/**
+	 * Splits a text into terms of the index: normalized tokens containing at
+	 * least a letter or a digit, stop-words excepted if they are removed.
+	 */
+	ArrayList<String> tokenize(String text) {
+		ArrayList<String> ret = new ArrayList<String>();
+		for (String token : Tokenizer.tokenizeSentence(text)) {
+			if (!hasLetterOrDigit(token))
+				continue;
+			if (stopWordsRemoved && isStopWord(token))
+				continue;
+			ret.add(RomanianNormalizer.normalize(token));
+		}
+		return ret;
+	}
+
+	private static boolean isStopWord(String token) {
+		try {
+			return StopWord.isStopWord(token);
+		} catch (IOException e) {
+			// the list was loaded when the index was built
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static boolean hasLetterOrDigit(String token) {
+		for (int i = 0; i < token.length(); i++)
+			if (Character.isLetterOrDigit(token.charAt(i)))
+				return true;
+		return false;
+	}
+
+	/**
+	 * @return the number of indexed glosses
+	 */
+	public int size() {
+		return ids.length;
+	}
+
+	/**
+	 * @return the number of distinct terms
+	 */
+	public int getTermCount() {
+		return terms.length;
+	}
+
+	/**
+	 * @return the size of the compressed postings, in bytes
+	 */
+	public int getPostingsSize() {
+		return postings.length;
+	}
+
+	/**
+	 * Returns the number of glosses containing a term.
+	 *
+	 * @param term
+	 *            the term, normalized as the indexed text is
+	 * @return the term's document frequency
+	 */
+	public int getDocumentFrequency(String term) {
+		Integer t = termIds.get(RomanianNormalizer.normalize(term));
+		return t == null ? 0 : documentFrequencies[t];
+	}
+
+	/**
+	 * A search result: a synset id and the BM25 score of its gloss.
+	 *
+	 * @author Stefan Dumitrescu
+	 * @author Radu Petrut
+	 */
+	public static final class Hit {
+		final int		doc;
+		final String	synsetId;
+		final double	score;
+
+		Hit(int doc, String synsetId, double score) {
+			this.doc = doc;
+			this.synsetId = synsetId;
+			this.score = score;
+		}
+
+		public String getSynsetId() {
+			return synsetId;
+		}
+
+		public double getScore() {
+			return score;
+		}
+
+		@Override
+		public String toString() {
+			return synsetId + " (" + String.format("%.4f", score) + ")";
+		}
+	}
+
+	/**
+	 * Best hits first; on equal scores, the first indexed synset first.
+	 */
+	static final Comparator<Hit>	RANKING	= new Comparator<Hit>() {
+												@Override
+												public int compare(Hit a, Hit b) {
+													if (a.score != b.score)
+														return a.score > b.score ? -1 : 1;
+													return a.doc < b.doc ? -1 : a.doc == b.doc ? 0 : 1;
+												}
+											};
+
+	/**
+	 * Method that searches the glosses containing some keywords.
+	 *
+	 * @param query
+	 *            the keywords, tokenized and normalized as the glosses are
+	 * @param k
+	 *            the maximum number of results
+	 * @param all
+	 *            if true, only the glosses containing all the keywords match
+	 *            (AND); otherwise, the glosses containing any of them (OR)
+	 * @return at most k hits, by decreasing BM25 score
+	 */
+	public ArrayList<Hit> search(String query, int k, boolean all) {
+		ArrayList<Hit> ret = new ArrayList<Hit>();
+		// a repeated keyword counts once
+		LinkedHashSet<String> keywords = new LinkedHashSet<String>(tokenize(query));
+		ArrayList<Integer> queryTerms = new ArrayList<Integer>();
+		for (String keyword : keywords) {
+			Integer t = termIds.get(keyword);
+			if (t != null)
+				queryTerms.add(t);
+			else if (all)
+				return ret;
+		}
+		if (queryTerms.isEmpty() || k <= 0)
+			return ret;
+
+		// the rarest terms first, so that AND queries shrink the candidates
+		// as early as possible
+		Collections.sort(queryTerms, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return documentFrequencies[a] - documentFrequencies[b];
+			}
+		});
+
+		int[] candidates = null;
+		double[] scores = null;
+		int count = 0;
+		for (Integer t : queryTerms) {
+			int df = documentFrequencies[t];
+			double idf = Math.log(1 + (ids.length - df + 0.5) / (df + 0.5));
+			int[] docs = new int[df], tfs = new int[df];
+			decode(t, docs, tfs);
+			if (candidates == null) {
+				candidates = docs;
+				scores = new double[df];
+				count = df;
+				for (int i = 0; i < df; i++)
+					scores[i] = weight(idf, tfs[i], docs[i]);
+				continue;
+			}
+
+			// merge the sorted candidates with the sorted postings
+			int[] mergedDocs = new int[all ? Math.min(count, df) : count + df];
+			double[] mergedScores = new double[mergedDocs.length];
+			int n = 0, i = 0, j = 0;
+			while (i < count || j < df) {
+				int a = i < count ? candidates[i] : Integer.MAX_VALUE;
+				int b = j < df ? docs[j] : Integer.MAX_VALUE;
+				if (a == b) {
+					mergedDocs[n] = a;
+					mergedScores[n++] = scores[i++] + weight(idf, tfs[j], docs[j++]);
+				} else if (a < b) {
+					if (!all) {
+						mergedDocs[n] = a;
+						mergedScores[n++] = scores[i];
+					}
+					i++;
+				} else {
+					if (!all) {
+						mergedDocs[n] = b;
+						mergedScores[n++] = weight(idf, tfs[j], b);
+					}
+					j++;
+				}
+				if (all && (i == count || j == df))
+					break;
+			}
+			candidates = mergedDocs;
+			scores = mergedScores;
+			count = n;
+		}
+
+		// keeps the k best hits, the worst of them at the head
+		PriorityQueue<Hit> best = new PriorityQueue<Hit>(Math.min(k, count) + 1, Collections.reverseOrder(RANKING));
+		for (int i = 0; i < count; i++) {
+			Hit hit = new Hit(candidates[i], null, scores[i]);
+			if (best.size() < k)
+				best.add(hit);
+			else if (RANKING.compare(hit, best.peek()) < 0) {
+				best.poll();
+				best.add(hit);
+			}
+		}
+		for (Hit hit : best)
+			ret.add(new Hit(hit.doc, ids[hit.doc], hit.score));
+		Collections.sort(ret, RANKING);
+		return ret;
+	}
+
+	/**
+	 * Method that returns the ids of the synsets whose glosses best match
+	 * some keywords.
+	 *
+	 * @see search(String, int, boolean)
+	 */
+	public ArrayList<String> searchIds(String query, int k, boolean all) {
+		ArrayList<String> ret = new ArrayList<String>();
+		for (Hit hit : search(query, k, all))
+			ret.add(hit.synsetId);
+		return ret;
+	}
+
+	private double weight(double idf, int tf, int doc) {
+		double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+		return idf * tf * (K1 + 1) / (tf + norm);
+	}
+
+	/**
+	 * Decodes the postings of a term into document numbers and frequencies.
+	 */
+	private void decode(int term, int[] docs, int[] tfs) {
+		int p = offsets[term], doc = -1;
+		for (int i = 0; i < docs.length; i++) {
+			int value = 0, shift = 0;
+			byte b;
+			do {
+				b = postings[p++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			doc += value;
+			docs[i] = doc;
+
+			value = 0;
+			shift = 0;
+			do {
+				b = postings[p++];
+				value |= (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+			tfs[i] = value;
+		}
+	}
+
+	/**
+	 * Rebuilds the term numbers after de-serialization.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		termIds = new HashMap<String, Integer>(terms.length * 4 / 3 + 1);
+		for (int t = 0; t < terms.length; t++)
+			termIds.put(terms[t], t);
+	}
+
+	/**
+	 * Writing (serializing) a GlossIndex object on disk.
+	 *
+	 * @param fileName
+	 * @param index
+	 * @return
+	 * @throws Exception
+	 */
+	public static boolean serializeToFile(String fileName, GlossIndex index) throws Exception {
+		IO.outln("Writing gloss index to file (\"" + fileName + "\") ...");
+
+		FileOutputStream fos = new FileOutputStream(fileName);
+		try (ObjectOutputStream oos = new ObjectOutputStream(fos)) {
+			oos.writeObject(index);
+		}
+
+		IO.outln("Done.");
+		return true;
+	}
+
+	/**
+	 * Reading (de-serializing) a GlossIndex object from disk.
+	 *
+	 * @param fileName
+	 * @return
+	 * @throws Exception
+	 */
+	public static GlossIndex deserializeFromFile(String fileName) throws Exception {
+		IO.outln("Reading gloss index from data file (\"" + fileName + "\") ...");
+
+		FileInputStream fis = new FileInputStream(fileName);
+		GlossIndex index;
+		try (ObjectInputStream ois = new ObjectInputStream(fis)) {
+			index = (GlossIndex) ois.readObject();
+		}
+
+		IO.outln("Done.");
+		return index;
+	}
+
+	/**
+	 * Growable array of bytes, used while building the index.
+	 */
+	private static final class ByteList {
+		byte[]	data	= new byte[1024];
+		int		size;
+
+		void writeVarInt(int value) {
+			if (size + 5 > data.length)
+				data = Arrays.copyOf(data, 2 * data.length);
+			while ((value & ~0x7F) != 0) {
+				data[size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			data[size++] = (byte) value;
+		}
+	}
+}
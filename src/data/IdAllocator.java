@@ -0,0 +1,152 @@
+package data;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Allocator of new synset ids of the form prefix + number + suffix.
+ * <p>
+ * Every registered id is split at its last run of digits (e.g.
+ * "ENG30-00001740-n" into "ENG30-", "00001740" and "-n"), and the allocator
+ * keeps, for each (prefix, suffix) pair, the greatest number seen and the
+ * number of digits it was written with. Asking for a new id is then a single
+ * map lookup instead of a scan of all the synsets.
+ * </p>
+ * <p>
+ * Only canonical pairs can be answered this way: a prefix that does not end
+ * with a digit and a suffix without digits. For other pairs the allocator
+ * returns null and the caller has to scan the ids. The allocator is safe for
+ * use by concurrent threads; allocate() never returns the same id twice.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class IdAllocator {
+
+	/**
+	 * Number of digits used for the first id of a (prefix, suffix) pair.
+	 */
+	static final int	DEFAULT_DIGIT_COUNT	= 8;
+
+	/**
+	 * The greatest number met for a (prefix, suffix) pair, with the number of
+	 * digits of its textual form.
+	 */
+	private static final class Counter {
+		long	max;
+		int		digitCount;
+
+		synchronized void observe(long value, int digits) {
+			if (value > max || (value == max && digitCount == 0)) {
+				max = value;
+				digitCount = digits;
+			}
+		}
+
+		synchronized long[] peek() {
+			return new long[] { max + 1, digitCount };
+		}
+
+		synchronized long[] allocate() {
+			max++;
+			return new long[] { max, digitCount };
+		}
+	}
+
+	/**
+	 * A ConcurrentHashMap containing (key, value) entries, where key is a
+	 * (prefix, suffix) pair and value is its counter.
+	 */
+	private final ConcurrentHashMap<String, Counter>	counters	= new ConcurrentHashMap<String, Counter>();
+
+	/**
+	 * Method that records an existing id, so that it is never handed out.
+	 * Ids without digits are ignored.
+	 *
+	 * @param id
+	 *            the id
+	 */
+	public void register(String id) {
+		if (id == null)
+			return;
+		int end = id.length();
+		while (end > 0 && !Character.isDigit(id.charAt(end - 1)))
+			end--;
+		int start = end;
+		while (start > 0 && Character.isDigit(id.charAt(start - 1)))
+			start--;
+		// longer numbers do not fit in a long, they are left to the scan
+		if (start == end || end - start > 18)
+			return;
+		long value = Long.parseLong(id.substring(start, end));
+		counter(id.substring(0, start), id.substring(end)).observe(value, end - start);
+	}
+
+	/**
+	 * Returns the next id for a (prefix, suffix) pair, without reserving it.
+	 *
+	 * @param prefix
+	 *            the given prefix
+	 * @param suffix
+	 *            the given suffix
+	 * @return the next id, or null if the pair is not canonical
+	 */
+	public String peek(String prefix, String suffix) {
+		if (!isCanonical(prefix, suffix))
+			return null;
+		return format(prefix, counter(prefix, suffix).peek(), suffix);
+	}
+
+	/**
+	 * Returns the next id for a (prefix, suffix) pair and reserves it, so that
+	 * later calls return greater ids.
+	 *
+	 * @param prefix
+	 *            the given prefix
+	 * @param suffix
+	 *            the given suffix
+	 * @return the new id, or null if the pair is not canonical
+	 */
+	public String allocate(String prefix, String suffix) {
+		if (!isCanonical(prefix, suffix))
+			return null;
+		return format(prefix, counter(prefix, suffix).allocate(), suffix);
+	}
+
+	/**
+	 * Checks whether the ids having a given prefix and suffix are split by
+	 * register() exactly into that prefix and suffix.
+	 *
+	 * @param prefix
+	 *            the given prefix
+	 * @param suffix
+	 *            the given suffix
+	 * @return true if the prefix does not end with a digit and the suffix
+	 *         contains no digit
+	 */
+	public static boolean isCanonical(String prefix, String suffix) {
+		if (!prefix.isEmpty() && Character.isDigit(prefix.charAt(prefix.length() - 1)))
+			return false;
+		for (int i = 0; i < suffix.length(); i++)
+			if (Character.isDigit(suffix.charAt(i)))
+				return false;
+		return true;
+	}
+
+	private Counter counter(String prefix, String suffix) {
+		String key = prefix + '\u0000' + suffix;
+		Counter counter = counters.get(key);
+		if (counter == null) {
+			Counter created = new Counter();
+			counter = counters.putIfAbsent(key, created);
+			if (counter == null)
+				counter = created;
+		}
+		return counter;
+	}
+
+	private static String format(String prefix, long[] next, String suffix) {
+		int digitCount = next[1] == 0 ? DEFAULT_DIGIT_COUNT : (int) next[1];
+		return prefix + String.format("%0" + digitCount + "d", next[0]) + suffix;
+	}
+}
@@ -0,0 +1,25 @@
+package data;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of ints, used while building the GlossIndex and the
+ * AttributeIndex. The values are data[0 .. size).
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+final class IntList {
+	int[]	data	= new int[4];
+	int		size;
+
+	void add(int value) {
+		if (size == data.length)
+			data = Arrays.copyOf(data, 2 * size);
+		data[size++] = value;
+	}
+
+	int[] toArray() {
+		return Arrays.copyOf(data, size);
+	}
+}
@@ -0,0 +1,576 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+/**
+ * Radix tree over the literals (words) of a dictionary, for prefix
+ * completion.
+ * <p>
+ * Every node is reached through an edge labelled with one or more characters,
+ * and siblings are kept sorted by the first character of their label. A node
+ * ending a word holds the number of senses of the word (the number of
+ * literals with that word), in total and per POS. Every node also holds the
+ * greatest such count in its subtree, which lets complete() visit the
+ * subtrees in best-first order and stop as soon as it has found the k most
+ * frequent completions, instead of enumerating all the words with the
+ * prefix.
+ * </p>
+ * <p>
+ * The tree also answers approximate queries (findSimilar()): the rows of the
+ * Levenshtein distance table between the query and the current path are
+ * computed while walking down the tree, so words sharing a prefix share that
+ * work. A subtree is skipped as soon as every cell of the row exceeds the
+ * allowed distance, or when the characters of the word that occur nowhere in
+ * the subtree (tracked per node as a 64-bit mask), or the difference between
+ * the lengths of the rest of the word and of the paths below, would push it
+ * over.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class LiteralTrie {
+
+	/**
+	 * Number of counters per node: the total count, then one per POS.
+	 */
+	private static final int		SLOTS		= 1 + Synset.Type.values().length;
+
+	private static final char[]		NO_KEYS		= new char[0];
+	private static final Node[]		NO_CHILDREN	= new Node[0];
+
+	private static final class Node {
+		String	label;
+		char[]	keys		= NO_KEYS;
+		Node[]	children	= NO_CHILDREN;
+
+		/**
+		 * Sense counts of the word ending here (null if no word ends here).
+		 */
+		int[]	counts;
+
+		/**
+		 * Greatest sense counts in the node's subtree.
+		 */
+		int[]	max			= new int[SLOTS];
+
+		/**
+		 * Characters on the edges below the node, one bit per character (see
+		 * bit()).
+		 */
+		long	chars;
+
+		/**
+		 * Shortest and longest path from the end of the node to the end of a
+		 * word below it.
+		 */
+		int		minRest, maxRest;
+
+		Node(String label) {
+			this.label = label;
+		}
+
+		int find(char c) {
+			return Arrays.binarySearch(keys, c);
+		}
+
+		void insert(int at, Node child) {
+			char[] newKeys = new char[keys.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(keys, 0, newKeys, 0, at);
+			System.arraycopy(children, 0, newChildren, 0, at);
+			newKeys[at] = child.label.charAt(0);
+			newChildren[at] = child;
+			System.arraycopy(keys, at, newKeys, at + 1, keys.length - at);
+			System.arraycopy(children, at, newChildren, at + 1, children.length - at);
+			keys = newKeys;
+			children = newChildren;
+		}
+
+		void remove(int at) {
+			char[] newKeys = new char[keys.length - 1];
+			Node[] newChildren = new Node[children.length - 1];
+			System.arraycopy(keys, 0, newKeys, 0, at);
+			System.arraycopy(children, 0, newChildren, 0, at);
+			System.arraycopy(keys, at + 1, newKeys, at, keys.length - at - 1);
+			System.arraycopy(children, at + 1, newChildren, at, children.length - at - 1);
+			keys = newKeys;
+			children = newChildren;
+		}
+
+		boolean isWord() {
+			return counts != null;
+		}
+
+		void recompute() {
+			for (int k = 0; k < SLOTS; k++) {
+				int m = counts == null ? 0 : counts[k];
+				for (Node child : children)
+					if (child.max[k] > m)
+						m = child.max[k];
+				max[k] = m;
+			}
+			long mask = 0;
+			int shortest = counts == null ? Integer.MAX_VALUE : 0, longest = 0;
+			for (Node child : children) {
+				mask |= child.chars | bits(child.label);
+				shortest = Math.min(shortest, child.minRest + child.label.length());
+				longest = Math.max(longest, child.maxRest + child.label.length());
+			}
+			chars = mask;
+			minRest = shortest == Integer.MAX_VALUE ? 0 : shortest;
+			maxRest = longest;
+		}
+	}
+
+	private final Node	root	= new Node("");
+	private int			size;
+
+	/**
+	 * @return the number of distinct words in the trie
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Method that records a sense (literal) of a word.
+	 *
+	 * @param word
+	 *            the literal's word
+	 * @param pos
+	 *            the POS of the synset containing the literal, may be null
+	 */
+	public void add(String word, Synset.Type pos) {
+		update(word, pos, 1);
+	}
+
+	/**
+	 * Method that forgets a sense (literal) of a word, recorded by add() with
+	 * the same arguments.
+	 *
+	 * @param word
+	 *            the literal's word
+	 * @param pos
+	 *            the POS of the synset containing the literal, may be null
+	 */
+	public void remove(String word, Synset.Type pos) {
+		update(word, pos, -1);
+	}
+
+	private void update(String word, Synset.Type pos, int delta) {
+		if (word == null)
+			return;
+		ArrayList<Node> path = new ArrayList<Node>();
+		Node node = root;
+		path.add(node);
+		int i = 0;
+		while (i < word.length()) {
+			int at = node.find(word.charAt(i));
+			if (at < 0) {
+				if (delta < 0)
+					return;
+				Node leaf = new Node(word.substring(i));
+				node.insert(-at - 1, leaf);
+				node = leaf;
+				path.add(node);
+				break;
+			}
+			Node child = node.children[at];
+			String label = child.label;
+			int m = 1;
+			while (m < label.length() && i + m < word.length() && label.charAt(m) == word.charAt(i + m))
+				m++;
+			if (m < label.length()) {
+				if (delta < 0)
+					return;
+				// split the edge
+				Node middle = new Node(label.substring(0, m));
+				child.label = label.substring(m);
+				middle.keys = new char[] { child.label.charAt(0) };
+				middle.children = new Node[] { child };
+				middle.max = child.max.clone();
+				middle.chars = child.chars | bits(child.label);
+				middle.minRest = child.minRest + child.label.length();
+				middle.maxRest = child.maxRest + child.label.length();
+				node.children[at] = middle;
+				child = middle;
+			}
+			node = child;
+			path.add(node);
+			i += m;
+		}
+
+		if (delta > 0) {
+			if (node.counts == null) {
+				node.counts = new int[SLOTS];
+				size++;
+			}
+			node.counts[0]++;
+			if (pos != null)
+				node.counts[pos.ordinal() + 1]++;
+		} else {
+			if (node.counts == null)
+				return;
+			node.counts[0]--;
+			if (pos != null && node.counts[pos.ordinal() + 1] > 0)
+				node.counts[pos.ordinal() + 1]--;
+			if (node.counts[0] <= 0) {
+				node.counts = null;
+				size--;
+				prune(path);
+			}
+		}
+		for (int j = path.size() - 1; j >= 0; j--)
+			path.get(j).recompute();
+	}
+
+	/**
+	 * Removes the nodes of a path that no longer lead to a word, and merges
+	 * the ones left with a single child into that child.
+	 */
+	private static void prune(ArrayList<Node> path) {
+		for (int j = path.size() - 1; j > 0; j--) {
+			Node node = path.get(j), parent = path.get(j - 1);
+			if (node.isWord() || node.children.length > 1)
+				return;
+			int at = parent.find(node.label.charAt(0));
+			if (node.children.length == 0)
+				parent.remove(at);
+			else {
+				Node child = node.children[0];
+				child.label = node.label + child.label;
+				parent.children[at] = child;
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of senses of a word.
+	 *
+	 * @param word
+	 *            the word
+	 * @param pos
+	 *            the POS whose senses are counted, or null for all of them
+	 * @return the number of literals with the given word (and POS)
+	 */
+	public int getCount(String word, Synset.Type pos) {
+		Node node = root;
+		int i = 0;
+		while (i < word.length()) {
+			int at = node.find(word.charAt(i));
+			if (at < 0)
+				return 0;
+			node = node.children[at];
+			if (!word.startsWith(node.label, i))
+				return 0;
+			i += node.label.length();
+		}
+		return node.counts == null ? 0 : node.counts[slot(pos)];
+	}
+
+	private static long bit(char c) {
+		return 1L << (c & 63);
+	}
+
+	private static long bits(String s) {
+		long mask = 0;
+		for (int i = 0; i < s.length(); i++)
+			mask |= bit(s.charAt(i));
+		return mask;
+	}
+
+	private static int slot(Synset.Type pos) {
+		return pos == null ? 0 : pos.ordinal() + 1;
+	}
+
+	/**
+	 * Candidate of the best-first search: a subtree (bounded by its max
+	 * count) or a word (with its own count).
+	 */
+	private static final class Candidate {
+		final Node		node;
+		final String	text;
+		final int		priority;
+		final boolean	word;
+
+		Candidate(Node node, String text, int priority, boolean word) {
+			this.node = node;
+			this.text = text;
+			this.priority = priority;
+			this.word = word;
+		}
+	}
+
+	private static final Comparator<Candidate>	ORDER	= new Comparator<Candidate>() {
+															@Override
+															public int compare(Candidate a, Candidate b) {
+																if (a.priority != b.priority)
+																	return a.priority > b.priority ? -1 : 1;
+																int c = a.text.compareTo(b.text);
+																if (c != 0)
+																	return c;
+																// a word precedes its own extensions
+																return a.word == b.word ? 0 : a.word ? -1 : 1;
+															}
+														};
+
+	/**
+	 * Returns the most frequent words starting with a prefix, the frequency
+	 * of a word being its number of senses.
+	 *
+	 * @param prefix
+	 *            the prefix
+	 * @param k
+	 *            the maximum number of completions
+	 * @return at most k words starting with the prefix, by decreasing number of
+	 *         senses (ties in alphabetical order)
+	 */
+	public ArrayList<String> complete(String prefix, int k) {
+		return complete(prefix, k, null);
+	}
+
+	/**
+	 * Returns the most frequent words starting with a prefix, counting only
+	 * the senses with a given POS.
+	 *
+	 * @param prefix
+	 *            the prefix
+	 * @param k
+	 *            the maximum number of completions
+	 * @param pos
+	 *            the POS whose senses are counted, or null for all of them
+	 * @return at most k words starting with the prefix and having senses with
+	 *         the given POS, by decreasing number of such senses (ties in
+	 *         alphabetical order)
+	 */
+	public ArrayList<String> complete(String prefix, int k, Synset.Type pos) {
+		ArrayList<String> ret = new ArrayList<String>(Math.min(k, 16));
+		int slot = slot(pos);
+
+		// the subtree of the words starting with the prefix
+		Node node = root;
+		int i = 0;
+		while (i < prefix.length()) {
+			int at = node.find(prefix.charAt(i));
+			if (at < 0)
+				return ret;
+			node = node.children[at];
+			int m = 0;
+			while (m < node.label.length() && i + m < prefix.length()) {
+				if (node.label.charAt(m) != prefix.charAt(i + m))
+					return ret;
+				m++;
+			}
+			i += node.label.length();
+		}
+		String text = i == prefix.length() ? prefix : prefix + node.label.substring(node.label.length() - (i
+				- prefix.length()));
+
+		PriorityQueue<Candidate> queue = new PriorityQueue<Candidate>(16, ORDER);
+		if (node.max[slot] > 0)
+			queue.add(new Candidate(node, text, node.max[slot], false));
+		while (!queue.isEmpty() && ret.size() < k) {
+			Candidate c = queue.poll();
+			if (c.word) {
+				ret.add(c.text);
+				continue;
+			}
+			if (c.node.counts != null && c.node.counts[slot] > 0)
+				queue.add(new Candidate(c.node, c.text, c.node.counts[slot], true));
+			for (Node child : c.node.children)
+				if (child.max[slot] > 0)
+					queue.add(new Candidate(child, c.text + child.label, child.max[slot], false));
+		}
+		return ret;
+	}
+
+	/**
+	 * Word found by an approximate search.
+	 */
+	private static final class Match {
+		final String	word;
+		final int		distance;
+		final int		count;
+
+		Match(String word, int distance, int count) {
+			this.word = word;
+			this.distance = distance;
+			this.count = count;
+		}
+	}
+
+	private static final Comparator<Match>	MATCH_ORDER	= new Comparator<Match>() {
+															@Override
+															public int compare(Match a, Match b) {
+																if (a.distance != b.distance)
+																	return a.distance < b.distance ? -1 : 1;
+																if (a.count != b.count)
+																	return a.count > b.count ? -1 : 1;
+																return a.word.compareTo(b.word);
+															}
+														};
+
+	/**
+	 * Returns the words within a given edit (Levenshtein) distance of a word.
+	 *
+	 * @param word
+	 *            the searched word
+	 * @param maxDistance
+	 *            the greatest number of inserted, deleted or replaced
+	 *            characters
+	 * @return the words within maxDistance of the searched word (including the
+	 *         word itself), the closest first, then by decreasing number of
+	 *         senses and in alphabetical order
+	 */
+	public ArrayList<String> findSimilar(String word, int maxDistance) {
+		return findSimilar(word, maxDistance, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the words closest to a word, within a given edit (Levenshtein)
+	 * distance.
+	 *
+	 * @param word
+	 *            the searched word
+	 * @param maxDistance
+	 *            the greatest number of inserted, deleted or replaced
+	 *            characters
+	 * @param k
+	 *            the maximum number of words returned
+	 * @return at most k words within maxDistance of the searched word, ordered
+	 *         as by findSimilar(String, int)
+	 */
+	public ArrayList<String> findSimilar(String word, int maxDistance, int k) {
+		// the searches with a small bound are much cheaper, so the bound is
+		// raised only while fewer than k words are found
+		ArrayList<Match> matches = new ArrayList<Match>();
+		int bound = k == Integer.MAX_VALUE ? maxDistance : 0;
+		for (; bound <= maxDistance; bound++) {
+			matches.clear();
+			new Search(word, bound, matches).visit(root);
+			if (matches.size() >= k)
+				break;
+		}
+
+		Collections.sort(matches, MATCH_ORDER);
+		ArrayList<String> ret = new ArrayList<String>(Math.min(k, matches.size()));
+		for (int i = 0; i < matches.size() && i < k; i++)
+			ret.add(matches.get(i).word);
+		return ret;
+	}
+
+	/**
+	 * State of an approximate search. Only the cells of the distance table
+	 * that can hold a distance up to maxDistance (the diagonal band
+	 * |i - depth| <= maxDistance) are computed; the others are capped at
+	 * maxDistance + 1. The rows are reused across the branches of the tree,
+	 * one per depth.
+	 */
+	private static final class Search {
+		final String			word;
+		final int				maxDistance;
+		final StringBuilder		path	= new StringBuilder();
+		final ArrayList<Match>	matches;
+		int[][]					rows	= new int[16][];
+
+		Search(String word, int maxDistance, ArrayList<Match> matches) {
+			this.word = word;
+			this.maxDistance = maxDistance;
+			this.matches = matches;
+			int[] first = row(0);
+			for (int i = 0; i < first.length; i++)
+				first[i] = Math.min(i, maxDistance + 1);
+		}
+
+		int[] row(int depth) {
+			if (depth >= rows.length)
+				rows = Arrays.copyOf(rows, rows.length * 2);
+			if (rows[depth] == null)
+				rows[depth] = new int[word.length() + 1];
+			return rows[depth];
+		}
+
+		/**
+		 * Extends the distance table along the node's label, then visits the
+		 * node's children.
+		 */
+		void visit(Node node) {
+			int n = word.length(), cap = maxDistance + 1;
+			int depth = path.length();
+			int[] row = rows[depth];
+			for (int j = 0; j < node.label.length(); j++) {
+				char c = node.label.charAt(j);
+				depth++;
+				int[] next = row(depth);
+				int lo = Math.max(1, depth - maxDistance), hi = Math.min(n, depth + maxDistance);
+				if (lo > hi)
+					return;
+				next[0] = Math.min(depth, cap);
+				if (lo > 1)
+					next[lo - 1] = cap;
+				int min = next[lo - 1];
+				for (int i = lo; i <= hi; i++) {
+					int d = row[i - 1] + (word.charAt(i - 1) == c ? 0 : 1);
+					if (row[i] + 1 < d)
+						d = row[i] + 1;
+					if (next[i - 1] + 1 < d)
+						d = next[i - 1] + 1;
+					if (d > cap)
+						d = cap;
+					next[i] = d;
+					if (d < min)
+						min = d;
+				}
+				if (hi < n)
+					next[hi + 1] = cap;
+				if (min > maxDistance)
+					return;
+				row = next;
+			}
+
+			// beyond the band, the cells of a reused row are stale
+			if (node.counts != null && n - depth <= maxDistance && row[n] <= maxDistance)
+				matches.add(new Match(path.toString() + node.label, row[n], node.counts[0]));
+			if (node.children.length == 0 || lowerBound(node, row, depth) > maxDistance)
+				return;
+			int length = path.length();
+			path.append(node.label);
+			for (Node child : node.children)
+				visit(child);
+			path.setLength(length);
+		}
+
+		/**
+		 * Returns a lower bound of the distance between the word and the words
+		 * below a node: from any cell of the row, each remaining character of
+		 * the word that occurs nowhere below the node costs one more edit, and
+		 * so does each character of difference between the remaining length of
+		 * the word and the lengths of the paths below the node.
+		 */
+		int lowerBound(Node node, int[] row, int depth) {
+			int n = word.length();
+			int lo = Math.max(0, depth - maxDistance), hi = Math.min(n, depth + maxDistance);
+			int missing = 0;
+			for (int i = n - 1; i >= hi; i--)
+				if ((node.chars & bit(word.charAt(i))) == 0)
+					missing++;
+			int bound = maxDistance + 1;
+			for (int i = hi; i >= lo; i--) {
+				if (i < n && i < hi && (node.chars & bit(word.charAt(i))) == 0)
+					missing++;
+				int rest = n - i;
+				int gap = rest < node.minRest ? node.minRest - rest : rest > node.maxRest ? rest - node.maxRest : 0;
+				int d = row[i] + Math.max(missing, gap);
+				if (d < bound)
+					bound = d;
+			}
+			return bound;
+		}
+	}
+}
@@ -0,0 +1,564 @@
+package data;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Estimate of the heap taken by a loaded dictionary (a RoWordNet,
+ * FrozenRoWordNet, CompactSynsetStore, GlossIndex etc. object), obtained by
+ * walking the objects reachable from it, without an instrumentation agent.
+ * <p>
+ * The bytes are broken down three ways:
+ * <ul>
+ * <li>by component: the root object itself and its fields (e.g. synsets,
+ * synsetsMap, words), walked in declaration order;</li>
+ * <li>by field: the fields of the classes of this library (e.g.
+ * Synset.literals, Literal.literal), an object being counted under the field
+ * through which it was first reached;</li>
+ * <li>by class.</li>
+ * </ul>
+ * Every object is counted once, under the first component and field reaching
+ * it, so the sum of each breakdown is the total: the Synset objects of a
+ * RoWordNet are counted under synsets, synsetsMap only adding its entries.
+ * </p>
+ * <p>
+ * The sizes are estimates for a 64-bit HotSpot JVM with compressed references
+ * (or without, when the maximum heap exceeds 32 GB): the library's own objects
+ * are measured from their declared fields, while Strings, boxed primitives
+ * and the java.util collections and BitSets are sized from a model of their
+ * layout, as their fields cannot be read on recent JVMs. Other JDK objects
+ * are counted without their content and listed by getUnmodelled(); static
+ * fields and enum constants are not counted. The estimates are meant for
+ * comparing storage modes and spotting regressions, not for exact
+ * accounting. The walked structures must not be modified meanwhile.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class MemoryReport {
+
+	static final boolean				COMPRESSED_REFERENCES	= Runtime.getRuntime().maxMemory() < (32L << 30);
+	static final int					REFERENCE				= COMPRESSED_REFERENCES ? 4 : 8;
+	static final int					HEADER					= COMPRESSED_REFERENCES ? 12 : 16;
+	static final int					ARRAY_HEADER			= COMPRESSED_REFERENCES ? 16 : 24;
+
+	/**
+	 * Whether Strings store Latin-1 text on one byte per character (Java 9
+	 * and later).
+	 */
+	static final boolean				COMPACT_STRINGS			= !System.getProperty("java.specification.version",
+																		"").startsWith("1.");
+
+	final String						root;
+	long								total;
+	long								objects;
+	final LinkedHashMap<String, Long>	components				= new LinkedHashMap<String, Long>();
+	final HashMap<String, Long>			fields					= new HashMap<String, Long>();
+	final HashMap<String, long[]>		classes					= new HashMap<String, long[]>();
+
+	/**
+	 * Number of objects of each JDK class whose layout is not modelled, sized
+	 * by shallowSize() without walking their content.
+	 */
+	final TreeMap<String, Long>			unmodelled				= new TreeMap<String, Long>();
+
+	/**
+	 * Object reached during the walk, with the component and the field it is
+	 * counted under.
+	 */
+	private static final class Item {
+		final Object	object;
+		final String	component;
+		final String	field;
+
+		Item(Object object, String component, String field) {
+			this.object = object;
+			this.component = component;
+			this.field = field;
+		}
+	}
+
+	private final IdentityHashMap<Object, Boolean>	visited	= new IdentityHashMap<Object, Boolean>();
+	private final ArrayDeque<Item>					stack	= new ArrayDeque<Item>();
+
+	/**
+	 * Instance fields of the classes measured by reflection.
+	 */
+	private final HashMap<Class<?>, Field[]>		layouts	= new HashMap<Class<?>, Field[]>();
+	private final HashMap<Class<?>, Long>			sizes	= new HashMap<Class<?>, Long>();
+
+	private MemoryReport(Object root) {
+		this.root = className(root.getClass());
+	}
+
+	/**
+	 * Builds the memory report of a dictionary.
+	 *
+	 * @param root
+	 *            the dictionary, or any object of this library holding one of
+	 *            its structures
+	 * @return the report
+	 */
+	public static MemoryReport of(Object root) {
+		MemoryReport report = new MemoryReport(root);
+		report.walk(root);
+		return report;
+	}
+
+	private void walk(Object root) {
+		visited.put(root, Boolean.TRUE);
+		String label = this.root;
+		components.put(label, 0L);
+		count(root, label, label, shallowSize(root));
+		for (Field f : layout(root.getClass())) {
+			Object value = read(f, root);
+			String component = f.getName();
+			components.put(component, 0L);
+			if (value == null || isShared(value) || visited.containsKey(value))
+				continue;
+			visited.put(value, Boolean.TRUE);
+			stack.push(new Item(value, component, label + "." + f.getName()));
+			while (!stack.isEmpty())
+				visit(stack.pop());
+		}
+	}
+
+	/**
+	 * Counts an object and pushes the objects it references.
+	 */
+	private void visit(Item item) {
+		Object o = item.object;
+		Class<?> c = o.getClass();
+		if (o instanceof String) {
+			count(o, item.component, item.field, stringSize((String) o));
+		} else if (c.isArray()) {
+			count(o, item.component, item.field, arraySize(c.getComponentType(), Array.getLength(o)));
+			if (!c.getComponentType().isPrimitive())
+				for (Object element : (Object[]) o)
+					push(element, item.component, item.field);
+		} else if (o instanceof BitSet) {
+			count(o, item.component, item.field, bitSetSize((BitSet) o));
+		} else if (o instanceof Map) {
+			Map<?, ?> map = (Map<?, ?>) o;
+			count(o, item.component, item.field, mapSize(map));
+			for (Map.Entry<?, ?> e : map.entrySet()) {
+				push(e.getKey(), item.component, item.field);
+				push(e.getValue(), item.component, item.field);
+			}
+		} else if (o instanceof Collection) {
+			Collection<?> collection = (Collection<?>) o;
+			count(o, item.component, item.field, collectionSize(collection));
+			for (Object element : collection)
+				push(element, item.component, item.field);
+		} else if (isLibraryClass(c)) {
+			count(o, item.component, item.field, shallowSize(o));
+			String owner = className(c);
+			for (Field f : layout(c))
+				if (!f.getType().isPrimitive())
+					push(read(f, o), item.component, owner + "." + f.getName());
+		} else if (isBoxed(o)) {
+			count(o, item.component, item.field, shallowSize(o));
+		} else {
+			// other JDK objects are not walked, their size is a guess
+			String name = className(c);
+			Long n = unmodelled.get(name);
+			unmodelled.put(name, n == null ? 1 : n + 1);
+			count(o, item.component, item.field, shallowSize(o));
+		}
+	}
+
+	private void push(Object o, String component, String field) {
+		if (o == null || isShared(o) || visited.containsKey(o))
+			return;
+		visited.put(o, Boolean.TRUE);
+		stack.push(new Item(o, component, field));
+	}
+
+	private void count(Object o, String component, String field, long bytes) {
+		total += bytes;
+		objects++;
+		if (components.containsKey(component))
+			components.put(component, components.get(component) + bytes);
+		Long sum = fields.get(field);
+		fields.put(field, sum == null ? bytes : sum + bytes);
+		String name = className(o.getClass());
+		long[] counts = classes.get(name);
+		if (counts == null)
+			classes.put(name, counts = new long[2]);
+		counts[0]++;
+		counts[1] += bytes;
+	}
+
+	/**
+	 * Enums and classes are shared by all the dictionaries.
+	 */
+	private static boolean isShared(Object o) {
+		return o instanceof Enum || o instanceof Class;
+	}
+
+	private static boolean isBoxed(Object o) {
+		return o instanceof Integer || o instanceof Long || o instanceof Double || o instanceof Float
+				|| o instanceof Short || o instanceof Byte || o instanceof Character || o instanceof Boolean;
+	}
+
+	private static boolean isLibraryClass(Class<?> c) {
+		String name = c.getName();
+		return !name.startsWith("java.") && !name.startsWith("javax.") && !name.startsWith("sun.")
+				&& !name.startsWith("jdk.");
+	}
+
+	/**
+	 * Name of a class without its package, e.g. LiteralTrie.Node.
+	 */
+	private static String className(Class<?> c) {
+		if (c.isArray())
+			return className(c.getComponentType()) + "[]";
+		String name = c.getName();
+		return name.substring(name.lastIndexOf('.') + 1).replace('$', '.');
+	}
+
+	private static Object read(Field f, Object o) {
+		try {
+			return f.get(o);
+		} catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the instance fields of a class of this library and of its
+	 * superclasses of this library, made accessible.
+	 */
+	private Field[] layout(Class<?> c) {
+		Field[] ret = layouts.get(c);
+		if (ret != null)
+			return ret;
+		ArrayList<Field> list = new ArrayList<Field>();
+		for (Class<?> k = c; k != null && isLibraryClass(k); k = k.getSuperclass())
+			for (Field f : k.getDeclaredFields())
+				if (!Modifier.isStatic(f.getModifiers())) {
+					f.setAccessible(true);
+					list.add(f);
+				}
+		ret = list.toArray(new Field[list.size()]);
+		layouts.put(c, ret);
+		return ret;
+	}
+
+	/**
+	 * Size of an object from its declared fields; 16 bytes for JDK objects
+	 * other than the boxed primitives (see getUnmodelled()).
+	 */
+	private long shallowSize(Object o) {
+		Class<?> c = o.getClass();
+		Long size = sizes.get(c);
+		if (size != null)
+			return size;
+		long bytes;
+		if (o instanceof Long || o instanceof Double)
+			bytes = align(HEADER + 8);
+		else if (isBoxed(o))
+			bytes = align(HEADER + 4);
+		else if (!isLibraryClass(c))
+			bytes = align(HEADER + REFERENCE);
+		else {
+			bytes = HEADER;
+			for (Field f : layout(c))
+				bytes += fieldSize(f.getType());
+			// fields inherited from JDK classes, e.g. the ones of a task
+			for (Class<?> k = c.getSuperclass(); k != null; k = k.getSuperclass())
+				if (!isLibraryClass(k))
+					for (Field f : k.getDeclaredFields())
+						if (!Modifier.isStatic(f.getModifiers()))
+							bytes += fieldSize(f.getType());
+			bytes = align(bytes);
+		}
+		sizes.put(c, bytes);
+		return bytes;
+	}
+
+	private static int fieldSize(Class<?> type) {
+		if (type == long.class || type == double.class)
+			return 8;
+		if (type == int.class || type == float.class)
+			return 4;
+		if (type == short.class || type == char.class)
+			return 2;
+		if (type == byte.class || type == boolean.class)
+			return 1;
+		return REFERENCE;
+	}
+
+	private static long align(long bytes) {
+		return (bytes + 7) & ~7L;
+	}
+
+	private static long arraySize(Class<?> type, int length) {
+		return align(ARRAY_HEADER + (long) length * fieldSize(type));
+	}
+
+	private static long object(int references, int bytes) {
+		return align(HEADER + references * REFERENCE + bytes);
+	}
+
+	/**
+	 * A String and its array of characters.
+	 */
+	private static long stringSize(String s) {
+		long bytes = object(1, 8);
+		if (!COMPACT_STRINGS)
+			return bytes + arraySize(char.class, s.length());
+		for (int i = 0; i < s.length(); i++)
+			if (s.charAt(i) > 0xFF)
+				return bytes + arraySize(byte.class, 2 * s.length());
+		return bytes + arraySize(byte.class, s.length());
+	}
+
+	/**
+	 * Capacity of the table of a hash map holding a given number of entries
+	 * with the default load factor.
+	 */
+	private static int tableCapacity(int size) {
+		int capacity = 16;
+		while (capacity * 3 / 4 < size)
+			capacity <<= 1;
+		return capacity;
+	}
+
+	/**
+	 * A map, with its table and entry objects, excluding the keys and values.
+	 */
+	private static long mapSize(Map<?, ?> map) {
+		int n = map.size();
+		if (map instanceof LinkedHashMap)
+			return object(6, 17) + arraySize(Object.class, tableCapacity(n)) + n * object(5, 4);
+		if (map instanceof HashMap)
+			return object(4, 16) + arraySize(Object.class, tableCapacity(n)) + n * object(3, 4);
+		if (map instanceof TreeMap)
+			return object(5, 8) + n * object(5, 1);
+		if (map instanceof IdentityHashMap)
+			return object(4, 8) + arraySize(Object.class, 2 * tableCapacity(n));
+		if (map instanceof EnumMap) {
+			// the values array has a slot per constant of the key type; the
+			// array of the constants is shared by all the maps
+			int constants = n == 0 ? 0
+					: ((Enum<?>) map.keySet().iterator().next()).getDeclaringClass().getEnumConstants().length;
+			return object(5, 4) + arraySize(Object.class, constants);
+		}
+		if (map.getClass().getName().startsWith("java.util.Collections$"))
+			// wrappers, whose content is the wrapped map's
+			return object(4, 0);
+		return object(4, 16) + arraySize(Object.class, tableCapacity(n)) + n * object(3, 4);
+	}
+
+	/**
+	 * A BitSet (its words array, wordsInUse and sizeIsSticky fields) with its
+	 * array of longs.
+	 */
+	private static long bitSetSize(BitSet bits) {
+		return object(1, 5) + arraySize(long.class, bits.size() / 64);
+	}
+
+	/**
+	 * A collection, with its array or nodes, excluding the elements.
+	 */
+	private static long collectionSize(Collection<?> collection) {
+		int n = collection.size();
+		if (collection instanceof LinkedHashSet)
+			return object(1, 0) + object(6, 17) + arraySize(Object.class, tableCapacity(n)) + n * object(5, 4);
+		if (collection instanceof HashSet)
+			return object(1, 0) + object(4, 16) + arraySize(Object.class, tableCapacity(n)) + n * object(3, 4);
+		if (collection.getClass().getName().startsWith("java.util.Collections$"))
+			return object(3, 0);
+		if (collection instanceof LinkedList)
+			return object(2, 8) + n * object(3, 0);
+		// array backed: ArrayList, ArrayDeque, etc.
+		return object(1, 8) + arraySize(Object.class, n);
+	}
+
+	/**
+	 * @return the name of the class of the walked object
+	 */
+	public String getRoot() {
+		return root;
+	}
+
+	/**
+	 * @return the estimated number of bytes reachable from the walked object
+	 */
+	public long getTotalBytes() {
+		return total;
+	}
+
+	/**
+	 * @return the number of objects walked (the entries of the collections are
+	 *         counted with their collection)
+	 */
+	public long getObjectCount() {
+		return objects;
+	}
+
+	/**
+	 * @return the bytes of each component (field of the walked object), in
+	 *         declaration order
+	 */
+	public LinkedHashMap<String, Long> getComponents() {
+		return new LinkedHashMap<String, Long>(components);
+	}
+
+	/**
+	 * @return the bytes counted under each field (as Class.field), largest
+	 *         first
+	 */
+	public LinkedHashMap<String, Long> getFields() {
+		return sorted(fields);
+	}
+
+	/**
+	 * @return the bytes of the instances of each class, largest first
+	 */
+	public LinkedHashMap<String, Long> getClassBytes() {
+		HashMap<String, Long> bytes = new HashMap<String, Long>();
+		for (Map.Entry<String, long[]> e : classes.entrySet())
+			bytes.put(e.getKey(), e.getValue()[1]);
+		return sorted(bytes);
+	}
+
+	/**
+	 * @return the number of instances of each class, in the order of
+	 *         getClassBytes()
+	 */
+	public LinkedHashMap<String, Long> getClassCounts() {
+		LinkedHashMap<String, Long> ret = new LinkedHashMap<String, Long>();
+		for (String name : getClassBytes().keySet())
+			ret.put(name, classes.get(name)[0]);
+		return ret;
+	}
+
+	/**
+	 * @return the number of objects of each JDK class whose content is not
+	 *         modelled, each counted as a 16 bytes object (or 24 bytes
+	 *         without compressed references); empty if the estimate covers
+	 *         every reached object
+	 */
+	public TreeMap<String, Long> getUnmodelled() {
+		return new TreeMap<String, Long>(unmodelled);
+	}
+
+	private static LinkedHashMap<String, Long> sorted(HashMap<String, Long> map) {
+		ArrayList<Map.Entry<String, Long>> entries = new ArrayList<Map.Entry<String, Long>>(map.entrySet());
+		Collections.sort(entries, new Comparator<Map.Entry<String, Long>>() {
+			@Override
+			public int compare(Map.Entry<String, Long> a, Map.Entry<String, Long> b) {
+				int c = b.getValue().compareTo(a.getValue());
+				return c != 0 ? c : a.getKey().compareTo(b.getKey());
+			}
+		});
+		LinkedHashMap<String, Long> ret = new LinkedHashMap<String, Long>();
+		for (Map.Entry<String, Long> e : entries)
+			ret.put(e.getKey(), e.getValue());
+		return ret;
+	}
+
+	/**
+	 * Renders the report as a JSON object, with the keys root, totalBytes,
+	 * objects, components, fields, classes (each class having a count and a
+	 * bytes value) and unmodelled (see getUnmodelled()).
+	 *
+	 * @return the JSON text
+	 */
+	public String toJson() {
+		StringBuilder sb = new StringBuilder("{");
+		sb.append("\"root\":").append(quote(root));
+		sb.append(",\"totalBytes\":").append(total);
+		sb.append(",\"objects\":").append(objects);
+		sb.append(",\"components\":");
+		appendJson(sb, components);
+		sb.append(",\"fields\":");
+		appendJson(sb, getFields());
+		sb.append(",\"classes\":{");
+		boolean first = true;
+		for (Map.Entry<String, Long> e : getClassBytes().entrySet()) {
+			if (!first)
+				sb.append(',');
+			first = false;
+			sb.append(quote(e.getKey())).append(":{\"count\":").append(classes.get(e.getKey())[0]).append(
+					",\"bytes\":").append(e.getValue()).append('}');
+		}
+		sb.append("},\"unmodelled\":");
+		appendJson(sb, unmodelled);
+		return sb.append('}').toString();
+	}
+
+	private static void appendJson(StringBuilder sb, Map<String, Long> map) {
+		sb.append('{');
+		boolean first = true;
+		for (Map.Entry<String, Long> e : map.entrySet()) {
+			if (!first)
+				sb.append(',');
+			first = false;
+			sb.append(quote(e.getKey())).append(':').append(e.getValue());
+		}
+		sb.append('}');
+	}
+
+	private static String quote(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c == '"' || c == '\\')
+				sb.append('\\').append(c);
+			else if (c < 0x20)
+				sb.append(String.format("\\u%04x", (int) c));
+			else
+				sb.append(c);
+		}
+		return sb.append('"').toString();
+	}
+
+	/**
+	 * Renders the report as text.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Memory report (").append(root).append("):");
+		sb.append("\n\t Total:\t").append(total).append(" bytes in ").append(objects).append(" objects");
+		sb.append("\n\n\t Components:");
+		appendText(sb, components);
+		sb.append("\n\n\t Fields:");
+		appendText(sb, getFields());
+		sb.append("\n\n\t Classes:");
+		for (Map.Entry<String, Long> e : getClassBytes().entrySet())
+			sb.append("\n\t\t").append(e.getKey()).append(": ").append(e.getValue()).append(" bytes, ").append(
+					classes.get(e.getKey())[0]).append(" objects");
+		if (!unmodelled.isEmpty()) {
+			sb.append("\n\n\t Unmodelled (content not counted):");
+			for (Map.Entry<String, Long> e : unmodelled.entrySet())
+				sb.append("\n\t\t").append(e.getKey()).append(": ").append(e.getValue()).append(" objects");
+		}
+		return sb.toString();
+	}
+
+	private void appendText(StringBuilder sb, Map<String, Long> map) {
+		for (Map.Entry<String, Long> e : map.entrySet())
+			sb.append("\n\t\t").append(e.getKey()).append(": ").append(e.getValue()).append(" bytes (").append(
+					String.format("%.1f", total == 0 ? 0.0 : 100.0 * e.getValue() / total)).append("%)");
+	}
+}
@@ -1,5 +1,7 @@
 package data;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 
 /**
@@ -15,12 +17,24 @@ public class Relation implements Serializable{
 	String relation;
 	String sourceLiteral, targetLiteral;
 
+	/**
+	 * The code of the relation type, as assigned by the RelationRegistry.
+	 */
+	transient int code;
+
+	/**
+	 * The synset whose relation groups hold this relation, if any; its groups
+	 * are dropped when the relation's type changes.
+	 */
+	transient Synset owner;
+
 	/**
 	 * Class constructor. Sets all the class variables to null.
 	 */
 	public Relation() {
 		this.sourceSynset = this.targetSynset = this.relation = null;
 		this.sourceLiteral = this.targetLiteral = null;
+		this.code = RelationRegistry.UNKNOWN;
 	}
 
 	/**
@@ -38,7 +52,7 @@ public class Relation implements Serializable{
 	public Relation(String sourceSynsetId, String targetSynsetId, String relation) {
 		this.sourceSynset = sourceSynsetId;
 		this.targetSynset = targetSynsetId;
-		this.relation = relation;
+		setRelation(relation);
 		this.sourceLiteral = this.targetLiteral = null;
 	}
 
@@ -60,7 +74,7 @@ public class Relation implements Serializable{
 	public Relation(String sourceSynsetId, String targetSynsetId, String relation, String sourceLiteral, String targetLiteral) {
 		this.sourceSynset = sourceSynsetId;
 		this.targetSynset = targetSynsetId;
-		this.relation = relation;
+		setRelation(relation);
 		this.sourceLiteral = sourceLiteral;
 		this.targetLiteral = targetLiteral;
 	}
@@ -110,13 +124,28 @@ public class Relation implements Serializable{
 	}
 
 	/**
-	 * Sets the relation to a given value.
+	 * Sets the relation to a given value. The relation type is registered in
+	 * the RelationRegistry and its interned instance is stored.
 	 * 
 	 * @param source
 	 *            the given value for the relation
 	 */
 	public void setRelation(String type) {
-		this.relation = type;
+		this.code = RelationRegistry.register(type);
+		this.relation = code == RelationRegistry.UNKNOWN ? null : RelationRegistry
+				.getName(code);
+		if (owner != null)
+			owner.relationGroups = null;
+	}
+
+	/**
+	 * 
+	 * @return the code of the relation type, as assigned by the
+	 *         RelationRegistry, or RelationRegistry.UNKNOWN if the relation is
+	 *         not set
+	 */
+	public int getRelationCode() {
+		return code;
 	}
 
 	/**
@@ -157,6 +186,15 @@ public class Relation implements Serializable{
 		this.targetLiteral = targetLiteral;
 	}
 
+	/**
+	 * Re-registers the relation type after de-serialization, as the codes are
+	 * not persisted.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		setRelation(relation);
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
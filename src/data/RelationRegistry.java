@@ -0,0 +1,139 @@
+package data;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * Registry of the relation types met in the loaded dictionaries.
+ * <p>
+ * Every relation type (e.g. "hypernym") is mapped to a small int code the
+ * first time it is seen, and to a single, interned String instance. Relation
+ * objects carry the code of their type, so that relation filtering can compare
+ * ints (or test bits of a mask) instead of Strings.
+ * </p>
+ * <p>
+ * The codes are only meaningful inside the running JVM: they are not
+ * serialized and are re-assigned when relations are de-serialized.
+ * Registration is synchronized, lookups are lock-free.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class RelationRegistry {
+
+	/**
+	 * Code returned for relation types that are not registered (and for null).
+	 */
+	public static final int							UNKNOWN	= -1;
+
+	/**
+	 * A HashMap containing (key, value) entries, where key is a relation type
+	 * and value is its code. Replaced, never modified, on registration.
+	 */
+	private static volatile HashMap<String, Integer>	codes	= new HashMap<String, Integer>();
+
+	/**
+	 * Relation types, indexed by their code. Replaced, never modified, on
+	 * registration.
+	 */
+	private static volatile String[]				names	= new String[0];
+
+	private RelationRegistry() {
+	}
+
+	/**
+	 * Returns the code of a relation type, registering the type if it was not
+	 * seen before.
+	 *
+	 * @param relation
+	 *            the relation type
+	 * @return the relation type's code, or UNKNOWN if relation is null
+	 */
+	public static int register(String relation) {
+		if (relation == null)
+			return UNKNOWN;
+		Integer code = codes.get(relation);
+		if (code != null)
+			return code;
+
+		synchronized (RelationRegistry.class) {
+			code = codes.get(relation);
+			if (code != null)
+				return code;
+			code = names.length;
+			HashMap<String, Integer> newCodes = new HashMap<String, Integer>(codes);
+			newCodes.put(relation, code);
+			String[] newNames = Arrays.copyOf(names, code + 1);
+			newNames[code] = relation;
+			names = newNames;
+			codes = newCodes;
+			return code;
+		}
+	}
+
+	/**
+	 * Returns the code of a relation type, without registering it.
+	 *
+	 * @param relation
+	 *            the relation type
+	 * @return the relation type's code, or UNKNOWN if the type was never
+	 *         registered
+	 */
+	public static int getCode(String relation) {
+		if (relation == null)
+			return UNKNOWN;
+		Integer code = codes.get(relation);
+		return code == null ? UNKNOWN : code;
+	}
+
+	/**
+	 * @param code
+	 *            a relation type's code
+	 * @return the interned relation type having the given code
+	 */
+	public static String getName(int code) {
+		return names[code];
+	}
+
+	/**
+	 * @return the number of registered relation types
+	 */
+	public static int size() {
+		return names.length;
+	}
+
+	/**
+	 * Compiles a list of relation types to a bit mask, with the bits of their
+	 * codes set. Unknown relation types are ignored.
+	 *
+	 * @param relations
+	 *            the relation types, may be null
+	 * @return the mask of the relation types
+	 */
+	public static BitSet toMask(String[] relations) {
+		BitSet mask = new BitSet();
+		if (relations != null)
+			for (String relation : relations) {
+				int code = getCode(relation);
+				if (code != UNKNOWN)
+					mask.set(code);
+			}
+		return mask;
+	}
+
+	/**
+	 * Tests whether a relation code has its bit set in a mask such as the ones
+	 * built by toMask(). UNKNOWN is never part of a mask.
+	 *
+	 * @param code
+	 *            a relation type's code, or UNKNOWN
+	 * @param mask
+	 *            the mask of relation codes
+	 * @return true if the code is part of the mask
+	 */
+	public static boolean inMask(int code, BitSet mask) {
+		return code >= 0 && mask.get(code);
+	}
+}
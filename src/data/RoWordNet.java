@@ -4,13 +4,26 @@ import io.IO;
 
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import utils.BloomFilter;
+import utils.RomanianNormalizer;
+import utils.StringPool;
 import utils.Timer;
 
 /**
@@ -25,6 +38,8 @@ public class RoWordNet implements Cloneable, Serializable {
 
 	/**
 	 * An ArrayList containing all the synsets that compose the dictionary.
+	 * Changes made directly to the list are not reflected by the indexes; use
+	 * addSynset() instead.
 	 */
 	public ArrayList<Synset>					synsets;
 
@@ -37,9 +52,110 @@ public class RoWordNet implements Cloneable, Serializable {
 	/**
 	 * A HashMap containing (key, value) entries, where key is a word belonging
 	 * to the dictionary and value is an ArrayList with all of it's senses( ids
-	 * of the synsets containing the word).
+	 * of the synsets containing the word). Derived from the synsets like the
+	 * other indexes, so it is not serialized.
 	 */
-	public HashMap<String, ArrayList<String>>	words;
+	public transient HashMap<String, ArrayList<String>>	words;
+
+	/**
+	 * A HashMap containing (key, value) entries, where key is a literal
+	 * (word+sense) belonging to the dictionary and value is an ArrayList with
+	 * the ids of the synsets containing it. The keys are the synsets' own
+	 * Literal objects. Kept in sync with the synsets by addSynset() and rebuilt
+	 * after de-serialization.
+	 */
+	transient HashMap<Literal, ArrayList<String>>	senses;
+
+	/**
+	 * The synsets partitioned by their POS: for each POS, a map containing
+	 * (key, value) entries, where key is a synset's id and value is the synset
+	 * itself. Synsets without a POS are not part of any partition.
+	 */
+	transient EnumMap<Synset.Type, LinkedHashMap<String, Synset>>	partitions;
+
+	/**
+	 * Unmodifiable views of the partitions, handed out by getSynsetMapByPos().
+	 */
+	transient EnumMap<Synset.Type, Map<String, Synset>>				partitionViews;
+
+	/**
+	 * A HashMap containing (key, value) entries, where key is a synset id and
+	 * value is an ArrayList with the relations pointing at that id (the
+	 * incoming edges). Ids that are referenced but not part of the dictionary
+	 * are also keys. Kept in sync by addSynset(), removeSynset(),
+	 * addRelation() and removeRelation(); editing a synset's relations list in
+	 * place leaves it out of date.
+	 */
+	transient HashMap<String, ArrayList<Relation>>					incoming;
+
+	/**
+	 * The synsets owning the incoming edges, recorded when the relations were
+	 * indexed: incomingOwners.get(id).get(i) holds incoming.get(id).get(i) in
+	 * its relations list, whatever the relation's sourceSynset field says.
+	 */
+	transient HashMap<String, ArrayList<Synset>>					incomingOwners;
+
+	/**
+	 * A HashMap containing (key, value) entries, where key is a synset id and
+	 * value is the position of the synset in the synsets list, so that
+	 * overwriting a synset does not need to search the list. Removing a
+	 * synset moves the following ones back by one place without updating
+	 * their entries, so a stored position may exceed the actual one by at
+	 * most removedPositions.
+	 */
+	transient HashMap<String, Integer>								positions;
+
+	/**
+	 * Number of synsets removed from the middle of the synsets list since the
+	 * positions index was rebuilt.
+	 */
+	transient int													removedPositions;
+
+	/**
+	 * Number of removals after which the positions index is rebuilt, bounding
+	 * the search of positionOf().
+	 */
+	static final int												MAX_REMOVED_POSITIONS	= 256;
+
+	/**
+	 * Tracks the greatest number used by the ids of each (prefix, suffix)
+	 * pair, for getNewId() and getNewIncrementalId().
+	 */
+	transient IdAllocator											idAllocator;
+
+	/**
+	 * Prefix tree of the words of the dictionary, with their number of senses,
+	 * for completeLiteral().
+	 */
+	transient LiteralTrie											literalTrie;
+
+	/**
+	 * A HashMap containing (key, value) entries, where key is a word of the
+	 * dictionary folded by RomanianNormalizer.strip() and value is an
+	 * ArrayList with the words of the dictionary having that key.
+	 */
+	transient HashMap<String, ArrayList<String>>					foldedWords;
+
+	/**
+	 * A HashMap containing (key, value) entries, where key is a Princeton
+	 * WordNet 2.0 id and value is an ArrayList with the ids of the synsets
+	 * listing it in their pwn20 field.
+	 */
+	transient HashMap<String, ArrayList<String>>					pwn20Index;
+
+	/**
+	 * Bloom filter over the words of the dictionary and their forms folded by
+	 * RomanianNormalizer.strip(), answering most lookups of absent words
+	 * without probing the literal indexes. Words are added to it as they are
+	 * indexed; as a Bloom filter cannot forget a word, it is rebuilt once
+	 * enough words were removed, or once it is full.
+	 */
+	transient BloomFilter											wordFilter;
+
+	/**
+	 * Number of words removed from the dictionary since wordFilter was built.
+	 */
+	transient int													removedWords;
 
 	/**
 	 * The last assigned id for a synset.
@@ -52,13 +168,13 @@ public class RoWordNet implements Cloneable, Serializable {
 	public RoWordNet() {
 		this.synsets = new ArrayList<Synset>();
 		this.synsetsMap = new HashMap<String, Synset>();
-		this.words = new HashMap<String, ArrayList<String>>();
+		buildIndexes();
 	}
 
 	/**
 	 * The class constructor.
 	 * <p>
-	 * Based on a list of synsets passed as argument it builds two HashMaps:
+	 * Based on a list of synsets passed as argument it builds three HashMaps:
 	 * <ul>
 	 * <li>
 	 * the first one's entries follow the structure (key, value), with the key
@@ -67,8 +183,16 @@ public class RoWordNet implements Cloneable, Serializable {
 	 * the second one's entries follow the structure (key, value), with the key
 	 * being a word's string representation and the value being the synsets
 	 * associated with that word.</li>
+	 * <li>
+	 * the third one's entries follow the structure (key, value), with the key
+	 * being a literal (word+sense) and the value being the synsets containing
+	 * that literal.</li>
 	 * </ul>
 	 * </p>
+	 * <p>
+	 * The list is kept as the synsets list; read-only views handed out by a
+	 * compact FrozenRoWordNet are replaced in it by their materialized Synsets.
+	 * </p>
 	 *
 	 * @param synsets
 	 *            the ArrayList of synsets
@@ -76,45 +200,418 @@ public class RoWordNet implements Cloneable, Serializable {
 	public RoWordNet(ArrayList<Synset> synsets) {
 		this.synsets = synsets;
 		this.synsetsMap = new HashMap<String, Synset>();
-		this.words = new HashMap<String, ArrayList<String>>();
 
 		Timer timer = new Timer();
 		IO.outln("Creating data structures...");
-		for (Synset s : synsets) {
+		for (int i = 0; i < synsets.size(); i++) {
+			Synset s = synsets.get(i).modifiable();
+			synsets.set(i, s);
 			this.synsetsMap.put(s.getId(), s);
-			if (s.literals != null && !s.literals.isEmpty())
-				for (Literal l : s.literals) {
-					if (!this.words.containsKey(l.literal)) {
-						ArrayList<String> al = new ArrayList<String>();
-						al.add(s.getId());
-						this.words.put(l.literal, al);
-					} else {
-						ArrayList<String> old_al = this.words.get(l.literal);
-						old_al.add(s.getId());
-						this.words.put(l.literal, old_al);
-					}
-				}
 		}
+		buildIndexes();
 		IO.out(" done. " + timer.mark());
 	}
 
 	/**
-	 * Copy-constructor
+	 * Copy-constructor. The synsets are shared with the copied object, the
+	 * indexes are rebuilt. To keep independent variants of a dictionary
+	 * without duplicating it, use RoWordNetVersion.
 	 *
 	 * @param obj
 	 */
 	public RoWordNet(RoWordNet obj) {
 		this.synsets = (ArrayList<Synset>) obj.synsets.clone();
 		this.synsetsMap = (HashMap<String, Synset>) obj.synsetsMap.clone();
-		this.words = (HashMap<String, ArrayList<String>>) obj.words.clone();
 		this.incrementalID = obj.incrementalID;
+		buildIndexes();
+	}
+
+	/**
+	 * Rebuilds all the derived indexes (literals, folded words, literal prefix
+	 * tree, word filter, POS partitions, incoming relations, PWN 2.0 ids),
+	 * following the order of the synsets list.
+	 */
+	void buildIndexes() {
+		this.words = new HashMap<String, ArrayList<String>>();
+		this.senses = new HashMap<Literal, ArrayList<String>>();
+		this.literalTrie = new LiteralTrie();
+		this.foldedWords = new HashMap<String, ArrayList<String>>();
+		this.pwn20Index = new HashMap<String, ArrayList<String>>();
+		this.wordFilter = null;
+		this.incoming = new HashMap<String, ArrayList<Relation>>();
+		this.incomingOwners = new HashMap<String, ArrayList<Synset>>();
+		this.positions = new HashMap<String, Integer>(synsets.size() * 4 / 3 + 1);
+		this.removedPositions = 0;
+		// reserved ids stay reserved across rebuilds
+		if (this.idAllocator == null)
+			this.idAllocator = new IdAllocator();
+		// the partitions are cleared rather than replaced, so that the views
+		// handed out by getSynsetMapByPos() stay valid
+		if (this.partitions == null) {
+			this.partitions = new EnumMap<Synset.Type, LinkedHashMap<String, Synset>>(Synset.Type.class);
+			this.partitionViews = new EnumMap<Synset.Type, Map<String, Synset>>(Synset.Type.class);
+			for (Synset.Type pos : Synset.Type.values()) {
+				LinkedHashMap<String, Synset> partition = new LinkedHashMap<String, Synset>();
+				partitions.put(pos, partition);
+				partitionViews.put(pos, Collections.unmodifiableMap(partition));
+			}
+		} else
+			for (LinkedHashMap<String, Synset> partition : partitions.values())
+				partition.clear();
+		for (int i = 0; i < synsets.size(); i++) {
+			Synset s = synsets.get(i);
+			if (synsetsMap.get(s.getId()) == s) {
+				positions.put(s.getId(), i);
+				index(s);
+			}
+		}
+		buildWordFilter();
+	}
+
+	/**
+	 * Rebuilds the word filter, with room for the words to double.
+	 */
+	private void buildWordFilter() {
+		wordFilter = new BloomFilter(Math.max(4 * words.size(), 1024));
+		removedWords = 0;
+		for (String word : words.keySet())
+			filterWord(word);
+	}
+
+	private void filterWord(String word) {
+		if (word == null)
+			return;
+		wordFilter.add(word);
+		String key = RomanianNormalizer.strip(word);
+		if (!key.equals(word))
+			wordFilter.add(key);
+	}
+
+	/**
+	 * Method that checks, with the word filter, whether a word (as stored, or
+	 * folded by RomanianNormalizer.strip()) may be in the dictionary.
+	 *
+	 * @param word
+	 *            the word
+	 * @return false if no literal of the dictionary has the word, true if one
+	 *         probably has it
+	 */
+	public boolean mightContainWord(String word) {
+		return word == null || wordFilter == null || wordFilter.mightContain(word);
+	}
+
+	/**
+	 * Rebuilds the positions index from the synsets list.
+	 */
+	void buildPositions() {
+		positions = new HashMap<String, Integer>(synsets.size() * 4 / 3 + 1);
+		removedPositions = 0;
+		for (int i = 0; i < synsets.size(); i++) {
+			Synset s = synsets.get(i);
+			if (synsetsMap.get(s.getId()) == s)
+				positions.put(s.getId(), i);
+		}
+	}
+
+	/**
+	 * Returns the position of a synset in the synsets list. The stored
+	 * position is checked first, then the removedPositions places before it
+	 * (the synset moved back by one place for each synset removed before it);
+	 * the whole list is searched only if the positions index is out of date
+	 * (the list was modified directly).
+	 *
+	 * @param s
+	 *            a synset of the dictionary
+	 * @return the synset's position, or -1 if it is not in the list
+	 */
+	int positionOf(Synset s) {
+		Integer pos = positions.get(s.getId());
+		if (pos != null)
+			for (int i = Math.min(pos, synsets.size() - 1); i >= 0 && i >= pos - removedPositions; i--)
+				if (synsets.get(i) == s) {
+					if (i != pos)
+						positions.put(s.getId(), i);
+					return i;
+				}
+		for (int i = 0; i < synsets.size(); i++)
+			if (synsets.get(i) == s)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Adds a synset to the derived indexes.
+	 *
+	 * @param s
+	 *            the synset to be indexed
+	 */
+	private void index(Synset s) {
+		idAllocator.register(s.getId());
+		Synset.Type pos = s.getPos();
+		if (pos != null)
+			partitions.get(pos).put(s.getId(), s);
+
+		s.getRelationGroups();
+		if (s.getRelations() != null)
+			for (Relation r : s.getRelations())
+				addIncoming(s, r);
+
+		if (s.getPwn20() != null)
+			for (String pwnId : s.getPwn20()) {
+				ArrayList<String> ids = pwn20Index.get(pwnId);
+				if (ids == null) {
+					ids = new ArrayList<String>(1);
+					pwn20Index.put(pwnId, ids);
+				}
+				if (!ids.contains(s.getId()))
+					ids.add(s.getId());
+			}
+
+		if (s.getLiterals() == null)
+			return;
+		for (Literal l : s.getLiterals()) {
+			ArrayList<String> ids = words.get(l.literal);
+			if (ids == null) {
+				ids = new ArrayList<String>(1);
+				words.put(l.literal, ids);
+				String key = RomanianNormalizer.strip(l.literal);
+				ArrayList<String> variants = foldedWords.get(key);
+				if (variants == null) {
+					variants = new ArrayList<String>(1);
+					foldedWords.put(key, variants);
+				}
+				variants.add(l.literal);
+				if (wordFilter != null) {
+					if (wordFilter.size() + 2 > wordFilter.getCapacity())
+						buildWordFilter();
+					else
+						filterWord(l.literal);
+				}
+			}
+			// a synset may contain the same word with several senses
+			if (ids.isEmpty() || !ids.get(ids.size() - 1).equals(s.getId()))
+				ids.add(s.getId());
+
+			ids = senses.get(l);
+			if (ids == null) {
+				ids = new ArrayList<String>(1);
+				senses.put(l, ids);
+			}
+			ids.add(s.getId());
+			literalTrie.add(l.literal, pos);
+		}
+	}
+
+	/**
+	 * Removes a synset from the derived indexes.
+	 *
+	 * @param s
+	 *            the synset to be removed
+	 */
+	private void unindex(Synset s) {
+		Synset.Type pos = s.getPos();
+		if (pos != null)
+			partitions.get(pos).remove(s.getId());
+
+		if (s.getRelations() != null)
+			for (Relation r : s.getRelations())
+				removeIncoming(r);
+
+		if (s.getPwn20() != null)
+			for (String pwnId : s.getPwn20())
+				removeId(pwn20Index, pwnId, s.getId());
+
+		if (s.getLiterals() == null)
+			return;
+		for (Literal l : s.getLiterals()) {
+			removeId(words, l.literal, s.getId());
+			if (!words.containsKey(l.literal)) {
+				removeId(foldedWords, RomanianNormalizer.strip(l.literal), l.literal);
+				// the filter keeps the removed words, which only cost false
+				// positives, until they make up half of the dictionary's words
+				if (++removedWords > words.size() / 2 + 512)
+					buildWordFilter();
+			}
+			removeId(senses, l, s.getId());
+			literalTrie.remove(l.literal, pos);
+		}
+	}
+
+	private void addIncoming(Synset owner, Relation r) {
+		ArrayList<Relation> edges = incoming.get(r.targetSynset);
+		if (edges == null) {
+			edges = new ArrayList<Relation>(1);
+			incoming.put(r.targetSynset, edges);
+			incomingOwners.put(r.targetSynset, new ArrayList<Synset>(1));
+		}
+		edges.add(r);
+		incomingOwners.get(r.targetSynset).add(owner);
+	}
+
+	private void removeIncoming(Relation r) {
+		ArrayList<Relation> edges = incoming.get(r.targetSynset);
+		if (edges == null)
+			return;
+		// equal relations may belong to different synsets
+		for (int i = 0; i < edges.size(); i++)
+			if (edges.get(i) == r) {
+				edges.remove(i);
+				incomingOwners.get(r.targetSynset).remove(i);
+				break;
+			}
+		if (edges.isEmpty()) {
+			incoming.remove(r.targetSynset);
+			incomingOwners.remove(r.targetSynset);
+		}
+	}
+
+	/**
+	 * Removes the relations pointing at a synset from the synsets owning them,
+	 * found through the incoming relations index.
+	 */
+	private void detachIncoming(String id) {
+		ArrayList<Relation> edges = incoming.remove(id);
+		ArrayList<Synset> owners = incomingOwners.remove(id);
+		if (edges == null)
+			return;
+		for (int e = 0; e < edges.size(); e++) {
+			Relation r = edges.get(e);
+			Synset owner = owners.get(e);
+			if (owner.relations == null)
+				continue;
+			for (int i = 0; i < owner.relations.size(); i++)
+				if (owner.relations.get(i) == r) {
+					owner.relations.remove(i);
+					owner.relationGroups = null;
+					break;
+				}
+		}
+	}
+
+	private static <K> void removeId(HashMap<K, ArrayList<String>> index, K key, String id) {
+		ArrayList<String> ids = index.get(key);
+		if (ids == null)
+			return;
+		ids.remove(id);
+		if (ids.isEmpty())
+			index.remove(key);
+	}
+
+	/**
+	 * Deduplicates the strings read and rebuilds the transient indexes over
+	 * the pooled values after de-serialization.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		internStrings(new StringPool());
+		buildIndexes();
+	}
+
+	/**
+	 * Method that makes equal Strings held by the synsets (ids, literals,
+	 * senses, relation ends, domains, SUMO terms, sentiment values etc.) share
+	 * a single String object, then rebuilds the indexes over the deduplicated
+	 * values. Definitions and usage examples are left untouched, as they are
+	 * rarely repeated.
+	 *
+	 * @param pool
+	 *            the pool used to deduplicate the Strings; it reports the
+	 *            number of removed duplicates afterwards
+	 */
+	public void deduplicateStrings(StringPool pool) {
+		internStrings(pool);
+		buildIndexes();
+	}
+
+	/**
+	 * Makes the Strings held by the synsets, and the keys of synsetsMap, share
+	 * the pooled String objects. The derived indexes are left to the caller.
+	 */
+	private void internStrings(StringPool pool) {
+		// ids first, so that relation targets share the synsets' own ids
+		for (Synset s : synsets)
+			s.id = pool.intern(s.id);
+		for (Synset s : synsets) {
+			if (s.pwn20 != null)
+				for (int i = 0; i < s.pwn20.size(); i++)
+					s.pwn20.set(i, pool.intern(s.pwn20.get(i)));
+			s.stamp = pool.intern(s.stamp);
+			s.domain = pool.intern(s.domain);
+			s.sumo = pool.intern(s.sumo);
+			s.sumotype = pool.intern(s.sumotype);
+			s.sentiwn_p = pool.intern(s.sentiwn_p);
+			s.sentiwn_n = pool.intern(s.sentiwn_n);
+			s.sentiwn_o = pool.intern(s.sentiwn_o);
+			s.nl = pool.intern(s.nl);
+			if (s.literals != null)
+				for (Literal l : s.literals) {
+					l.literal = pool.intern(l.literal);
+					l.sense = pool.intern(l.sense);
+				}
+			if (s.relations != null)
+				for (Relation r : s.relations) {
+					r.sourceSynset = pool.intern(r.sourceSynset);
+					r.targetSynset = pool.intern(r.targetSynset);
+					r.sourceLiteral = pool.intern(r.sourceLiteral);
+					r.targetLiteral = pool.intern(r.targetLiteral);
+				}
+		}
+		// re-keyed in place, so that the keys are the synsets' own ids
+		String[] ids = synsetsMap.keySet().toArray(new String[synsetsMap.size()]);
+		Synset[] values = new Synset[ids.length];
+		for (int i = 0; i < ids.length; i++)
+			values[i] = synsetsMap.get(ids[i]);
+		synsetsMap.clear();
+		for (int i = 0; i < ids.length; i++)
+			synsetsMap.put(pool.intern(ids[i]), values[i]);
+	}
+
+	/**
+	 * Method that returns an unmodifiable view of the synsets with the same
+	 * POS. The view is backed by an index maintained on every addSynset() call,
+	 * so it is neither copied nor rebuilt.
+	 * <p>
+	 * The map entries follow the structure (key, value), with the key being a
+	 * synset's id and the value being the synset itself.
+	 * </p>
+	 *
+	 * @param pos
+	 *            the Part Of Speech, representing the sorting criterion
+	 * @return the synsets with the same pos as the one passed as argument
+	 */
+	public Map<String, Synset> getSynsetMapByPos(Synset.Type pos) {
+		return partitionViews.get(pos);
+	}
+
+	/**
+	 * Method that returns an unmodifiable view of the synsets with the same
+	 * POS, in the order they were added to the dictionary.
+	 *
+	 * @param pos
+	 *            the Part Of Speech, representing the sorting criterion
+	 * @return the synsets with the same pos as the one passed as argument
+	 * @see getSynsetMapByPos(Synset.Type pos)
+	 */
+	public Collection<Synset> getSynsetsByPos(Synset.Type pos) {
+		return partitionViews.get(pos).values();
+	}
+
+	/**
+	 * @param pos
+	 *            the Part Of Speech
+	 * @return the number of synsets with the given POS
+	 */
+	public int getSynsetCountByPos(Synset.Type pos) {
+		return partitions.get(pos).size();
 	}
 
 	/**
 	 * Method that builds and returns a Hashmap of synsets with the same POS.
 	 * <p>
 	 * The HashMap entries follow the structure (key, value), with the key being
-	 * a synset's id and the value being the synset itself.
+	 * a synset's id and the value being the synset itself. The HashMap is a
+	 * copy that can be freely modified; use getSynsetMapByPos() to avoid the
+	 * copy.
 	 * </p>
 	 *
 	 * @param pos
@@ -122,39 +619,30 @@ public class RoWordNet implements Cloneable, Serializable {
 	 * @return the synsets with the same pos as the one passed as argument
 	 */
 	public HashMap<String, Synset> getHashedSynsetsByPos(Synset.Type pos) {
-		HashMap<String, Synset> posSynsets = new HashMap<String, Synset>();
-
-		for (Synset s : synsets)
-			if (s.getPos().equals(pos))
-				if (!posSynsets.containsKey(s.getId()))
-					posSynsets.put(s.getId(), s);
-
-		return posSynsets;
+		return new HashMap<String, Synset>(partitions.get(pos));
 	}
 
 	/**
 	 * Method that builds and returns an ArrayList of synsets with the same POS.
+	 * The ArrayList is a copy that can be freely modified; use
+	 * getSynsetsByPos() to avoid the copy.
 	 *
 	 * @param pos
 	 *            the Part Of Speech, representing the sorting criterion
 	 * @return the synsets with the same pos as the one passed as argument
 	 */
 	public ArrayList<Synset> getListedSynsetsByPos(Synset.Type pos) {
-		ArrayList<Synset> posSynsets = new ArrayList<Synset>();
-
-		for (Synset s : synsets)
-			if (s.getPos().equals(pos))
-				if (!posSynsets.contains(s))
-					posSynsets.add(s);
-
-		return posSynsets;
+		return new ArrayList<Synset>(partitions.get(pos).values());
 	}
 
 	/**
 	 * Returns the first available id that starts with a given prefix and ends
 	 * with a given suffix.
 	 * <p>
-	 * By available it means the id is not assigned to an existing synset.
+	 * By available it means the id is not assigned to an existing synset (nor
+	 * handed out by getNewIncrementalId()). For a prefix that does not end with
+	 * a digit and a suffix without digits, the id is obtained from the
+	 * IdAllocator in constant time; otherwise the synsets are scanned.
 	 * </p>
 	 *
 	 * @param prefix
@@ -165,6 +653,10 @@ public class RoWordNet implements Cloneable, Serializable {
 	 *         with the given suffix
 	 */
 	public String getNewId(String prefix, String suffix) {
+		String id = idAllocator.peek(prefix, suffix);
+		if (id != null)
+			return id;
+
 		boolean matched = false;
 		int max = 0, digitCount = 0;
 		String temp;
@@ -199,6 +691,12 @@ public class RoWordNet implements Cloneable, Serializable {
 	 * existing synsets and find the last assigned id that follows the rule. If
 	 * the prefix-suffix rule is satisfied, the method will simply increment the
 	 * stored id's digit section in order to obtain the first available id.
+	 * <p>
+	 * For a prefix that does not end with a digit and a suffix without digits,
+	 * the id is reserved in the IdAllocator instead: it is never handed out
+	 * again, whatever prefixes were used in between, and concurrent callers
+	 * get distinct ids.
+	 * </p>
 	 *
 	 * @param prefix
 	 *            the given prefix
@@ -209,6 +707,12 @@ public class RoWordNet implements Cloneable, Serializable {
 	 * @see getNewId(String prefix, String suffix)
 	 */
 	public String getNewIncrementalId(String prefix, String suffix) {
+		String id = idAllocator.allocate(prefix, suffix);
+		if (id != null) {
+			incrementalID = id;
+			return id;
+		}
+
 		if (incrementalID == null || !incrementalID.startsWith(prefix) || (suffix != "" && !incrementalID
 				.endsWith(suffix))) {
 			incrementalID = this.getNewId(prefix, suffix);
@@ -224,7 +728,10 @@ public class RoWordNet implements Cloneable, Serializable {
 
 	/**
 	 * Adds a given synset to the synset pool, overwriting an existing synset if
-	 * the overwrite flag is true.
+	 * the overwrite flag is true. An overwritten synset is replaced at its
+	 * position in the synsets list, in constant time, and all the indexes are
+	 * updated in the same call. A read-only view handed out by a compact
+	 * FrozenRoWordNet is stored as its materialized Synset.
 	 *
 	 * @param synset
 	 *            Synset to be added
@@ -236,13 +743,24 @@ public class RoWordNet implements Cloneable, Serializable {
 	 *         previously existing synset that will not be overwritten)
 	 */
 	public boolean addSynset(Synset synset, boolean overwrite) {
-		if (this.synsetsMap.containsKey(synset.getId())) {
+		synset = synset.modifiable();
+		Synset old = this.synsetsMap.get(synset.getId());
+		int pos = -1;
+		if (old != null) {
 			if (overwrite == false)
 				return false;
-			this.synsets.remove(synsetsMap.get(synset.getId()));
+			pos = positionOf(old);
+			unindex(old);
 		}
-		this.synsets.add(synset);
+		// an overwritten synset is replaced in place
+		if (pos < 0) {
+			pos = this.synsets.size();
+			this.synsets.add(synset);
+		} else
+			this.synsets.set(pos, synset);
 		this.synsetsMap.put(synset.getId(), synset);
+		this.positions.put(synset.getId(), pos);
+		index(synset);
 		return true;
 	}
 
@@ -262,121 +780,184 @@ public class RoWordNet implements Cloneable, Serializable {
 	}
 
 	/**
-	 * Method that prints on stdout various statisticals informations regarding
-	 * the synsets that compose the dictionary. The informations are obtained by
-	 * taking into consideration different criteria, such as the POS or the
-	 * relation frequency.
+	 * Removes the synset having a given id, together with the relations of
+	 * the other synsets that point at it. The pointing relations, and the
+	 * synsets owning them, are found through the incoming relations index, so
+	 * their cost is proportional to the synset's degree, not to the size of
+	 * the dictionary. All the indexes are updated.
+	 * <p>
+	 * The synsets following the removed one in the synsets list move back by
+	 * one place, so the list keeps its order; removeSynsets() removes several
+	 * synsets in a single pass over the list. The id of a removed synset is
+	 * not handed out again by getNewId().
+	 * </p>
 	 *
-	 * @return the statistical informations in String format
+	 * @param id
+	 *            the id of the synset to be removed
+	 * @return true if the synset was removed, false if there was no synset
+	 *         with the given id
 	 */
-	public String getStats() {
-		HashMap<String, Synset> nounSynsets = getHashedSynsetsByPos(Synset.Type.Noun);
-		HashMap<String, Synset> verbSynsets = getHashedSynsetsByPos(Synset.Type.Verb);
-		HashMap<String, Synset> adverbSynsets = getHashedSynsetsByPos(Synset.Type.Adverb);
-		HashMap<String, Synset> adjectivesSynsets = getHashedSynsetsByPos(Synset.Type.Adjective);
-		int lit, nl, totalLit = 0;
-		HashSet<Literal> hsLit;
-
-
-		String out = "Statistics:";
-		out += "\n\t TOTAL Synsets:\t\t" + this.synsets.size();
-		out += "\n\t Noun Synsets:\t\t" + nounSynsets.size();
-		hsLit = new HashSet<Literal>();lit = nl = 0;
-		for(String id : nounSynsets.keySet()) {
-			Synset s = nounSynsets.get(id);
-			if (s.literals != null)
-				for (Literal l : s.literals) {
-					hsLit.add(l);
-					lit++;totalLit++;
-				}
-			if(s.isNon_lexicalized()) nl++;
-		}
-		out += "\n\t\t Noun Literals:\t\t" + lit;
-		out += "\n\t\t Noun Unique Literals:\t\t" + hsLit.size();
-		out += "\n\t\t Noun Non-lexicalized Synsets:\t\t" + nl;
-
-
-		out += "\n\t Verb Synsets:\t\t" + verbSynsets.size();
-		hsLit = new HashSet<Literal>();lit = nl = 0;
-		for(String id : verbSynsets.keySet()) {
-			Synset s = verbSynsets.get(id);
-			if (s.literals != null)
-				for (Literal l : s.literals) {
-					hsLit.add(l);
-					lit++;totalLit++;
-				}
-			if(s.non_lexicalized) nl++;
-		}
-		out += "\n\t\t Verb Literals:\t\t" + lit;
-		out += "\n\t\t Verb Unique Literals:\t\t" + hsLit.size();
-		out += "\n\t\t Verb Non-lexicalized Synsets:\t\t" + nl;
-
-
-		out += "\n\t Adverb Synsets:\t" + adverbSynsets.size();
-		hsLit = new HashSet<Literal>();lit = nl = 0;
-		for(String id : adverbSynsets.keySet()) {
-			Synset s = adverbSynsets.get(id);
-			if (s.literals != null)
-				for (Literal l : s.literals) {
-					hsLit.add(l);
-					lit++;totalLit++;
-				}
-			if(s.non_lexicalized) nl++;
-		}
-		out += "\n\t\t Adverb Literals:\t\t" + lit;
-		out += "\n\t\t Adverb Unique Literals:\t\t" + hsLit.size();
-		out += "\n\t\t Adverb Non-lexicalized Synsets:\t\t" + nl;
+	public boolean removeSynset(String id) {
+		Synset s = this.synsetsMap.get(id);
+		if (s == null)
+			return false;
 
+		int pos = positionOf(s);
+		unindex(s);
+		detachIncoming(id);
 
-		out += "\n\t Adjective Synsets:\t" + adjectivesSynsets.size();
-		hsLit = new HashSet<Literal>();lit = nl = 0;
-		for(String id : adjectivesSynsets.keySet()) {
-			Synset s = adjectivesSynsets.get(id);
-			if (s.literals != null)
-				for (Literal l : s.literals) {
-					hsLit.add(l);
-					lit++;totalLit++;
-				}
-			if(s.non_lexicalized) nl++;
+		this.synsetsMap.remove(id);
+		this.positions.remove(id);
+		if (pos >= 0) {
+			this.synsets.remove(pos);
+			if (pos < this.synsets.size() && ++removedPositions > MAX_REMOVED_POSITIONS)
+				buildPositions();
 		}
-		out += "\n\t\t Adjective Literals:\t\t" + lit;
-		out += "\n\t\t Adjective Unique Literals:\t\t" + hsLit.size();
-		out += "\n\t\t Adjective Non-lexicalized Synsets:\t\t" + nl;
-
-
+		return true;
+	}
 
+	/**
+	 * Adds a relation to a synset of the dictionary, updating the incoming
+	 * relations index.
+	 * <p>
+	 * The relations of the dictionary's synsets must not be edited in place
+	 * (through Synset.getRelations() or the Relation setters), as the indexes
+	 * would not follow: use addRelation() and removeRelation(), or overwrite
+	 * the synset with an edited copy (see Synset.copy()) through addSynset().
+	 * </p>
+	 *
+	 * @param synsetId
+	 *            the id of the relation's source synset
+	 * @param relation
+	 *            the relation to be added
+	 * @return true if the relation was added, false if there is no synset
+	 *         with the given id
+	 */
+	public boolean addRelation(String synsetId, Relation relation) {
+		Synset s = this.synsetsMap.get(synsetId);
+		if (s == null)
+			return false;
+		if (s.relations == null)
+			s.relations = new ArrayList<Relation>(1);
+		s.relations.add(relation);
+		s.relationGroups = null;
+		addIncoming(s, relation);
+		return true;
+	}
 
+	/**
+	 * Removes a relation from a synset of the dictionary, updating the
+	 * incoming relations index. The relation is searched by identity first,
+	 * then by equality.
+	 *
+	 * @param synsetId
+	 *            the id of the relation's source synset
+	 * @param relation
+	 *            the relation to be removed
+	 * @return true if the relation was removed, false if the synset does not
+	 *         exist or does not have the relation
+	 * @see addRelation(String synsetId, Relation relation)
+	 */
+	public boolean removeRelation(String synsetId, Relation relation) {
+		Synset s = this.synsetsMap.get(synsetId);
+		if (s == null || s.relations == null)
+			return false;
+		int i = 0;
+		while (i < s.relations.size() && s.relations.get(i) != relation)
+			i++;
+		if (i == s.relations.size())
+			i = s.relations.indexOf(relation);
+		if (i < 0)
+			return false;
+		removeIncoming(s.relations.remove(i));
+		s.relationGroups = null;
+		return true;
+	}
 
-		HashSet<Literal> hl = new HashSet<Literal>();
-		HashMap<String, Integer> relationFrequency = new HashMap<String, Integer>();
-		int relationCount=0;
+	/**
+	 * Starts a transaction: a set of adds, overwrites and removals staged
+	 * together and applied all at once by its commit() method.
+	 *
+	 * @return the new transaction
+	 */
+	public RoWordNetTransaction newTransaction() {
+		return new RoWordNetTransaction(this);
+	}
 
-		for (Synset s : synsets) {
-			if (s.literals != null)
-				for (Literal l : s.literals)
-					hl.add(l);
-			if (s.relations == null)
+	/**
+	 * Method that removes several synsets, as removeSynset() does, dropping
+	 * them from the synsets list in a single pass that keeps the order of the
+	 * remaining synsets.
+	 *
+	 * @param ids
+	 *            the ids of the synsets to be removed
+	 * @return the number of removed synsets
+	 * @see removeSynset(String id)
+	 */
+	public int removeSynsets(Collection<String> ids) {
+		Set<Synset> removed = Collections.newSetFromMap(new IdentityHashMap<Synset, Boolean>());
+		for (String id : ids) {
+			Synset s = this.synsetsMap.get(id);
+			if (s == null)
 				continue;
-			for (Relation r : s.relations) {
-				relationCount++;
-				if (!relationFrequency.containsKey(r.relation))
-					relationFrequency.put(r.relation, new Integer(1));
-				else
-					relationFrequency
-							.put(r.relation, new Integer(relationFrequency
-									.get(r.relation)) + 1);
-			}
+			unindex(s);
+			detachIncoming(id);
+			this.synsetsMap.remove(id);
+			removed.add(s);
 		}
+		if (!removed.isEmpty()) {
+			removeFromList(removed);
+			buildPositions();
+		}
+		return removed.size();
+	}
 
-		out += "\n\t Total Literals:\t" + totalLit;
-		out += "\n\t Total Unique Literals:\t" + hl.size();
-		out += "\n\n\t Number of relations:\t"+relationCount;
-		out += "\n\t Relation Frequency table:";
-		for (String rel : relationFrequency.keySet()) {
-			out += "\n\t\t" + rel + ": " + relationFrequency.get(rel);
+	/**
+	 * Removes given synsets from the synsets list in a single pass, keeping
+	 * the order of the remaining synsets. The positions index is left to the
+	 * caller.
+	 *
+	 * @param removed
+	 *            the synset objects to be removed, compared by identity
+	 */
+	void removeFromList(Set<Synset> removed) {
+		int kept = 0;
+		for (int i = 0; i < synsets.size(); i++) {
+			Synset s = synsets.get(i);
+			if (!removed.contains(s))
+				synsets.set(kept++, s);
 		}
+		synsets.subList(kept, synsets.size()).clear();
+	}
 
-		return out;
+	/**
+	 * Computes the statistics of the dictionary in one parallel pass over the
+	 * synsets.
+	 *
+	 * @return the statistics
+	 */
+	public Stats computeStats() {
+		return Stats.compute(this);
+	}
+
+	/**
+	 * Estimates the heap taken by the dictionary and its indexes, by
+	 * component, field and class.
+	 *
+	 * @return the memory report
+	 * @see MemoryReport
+	 */
+	public MemoryReport computeMemoryReport() {
+		return MemoryReport.of(this);
+	}
+
+	/**
+	 * Method that returns some statistics of the dictionary as text.
+	 *
+	 * @return the statistics, rendered by Stats.toString()
+	 */
+	public String getStats() {
+		return computeStats().toString();
 	}
 
 	/**
@@ -438,17 +1019,192 @@ public class RoWordNet implements Cloneable, Serializable {
 	 *         reference synset
 	 */
 	public ArrayList<String> getRelatedSynsetIds(String synsetId, String relation) {
+		if (!"*".equals(relation)) {
+			int code = RelationRegistry.getCode(relation);
+			if (code == RelationRegistry.UNKNOWN)
+				return new ArrayList<String>();
+			return getRelatedSynsetIds(synsetId, code);
+		}
+
 		ArrayList<String> ret = new ArrayList<String>();
-		Synset s = synsetsMap.get(synsetId);
-		for (Relation rel : s.getRelations()) {
-			if ("*".equals(relation) || rel.relation.equals(relation))
-				ret.add(rel.targetSynset);
+		for (Relation rel : synsetsMap.get(synsetId).getRelations())
+			ret.add(rel.targetSynset);
+		return ret;
+	}
+
+	/**
+	 * Returns the ids of the synsets that relate with a reference synset
+	 * through the relation type having a given code. Only the relations of
+	 * that type are visited.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @param relationCode
+	 *            the relation type's code, as assigned by the RelationRegistry
+	 * @return the ids of the synsets that satisfy the given relation with the
+	 *         reference synset
+	 * @see getRelatedSynsetIds(String synsetId, String relation)
+	 */
+	public ArrayList<String> getRelatedSynsetIds(String synsetId, int relationCode) {
+		ArrayList<String> ret = new ArrayList<String>();
+		Synset.RelationGroups groups = synsetsMap.get(synsetId).getRelationGroups();
+		int group = groups.find(relationCode);
+		if (group < 0)
+			return ret;
+		for (int i = groups.start(group); i < groups.ends[group]; i++)
+			ret.add(groups.relations[i].targetSynset);
+		return ret;
+	}
+
+	/**
+	 * Returns the ids of the synsets that relate with a reference synset
+	 * through any relation type whose code is not part of an exclusion mask.
+	 * The ids are grouped by relation type, the types following the order in
+	 * which they first appear in the synset's relations list.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @param excludedCodes
+	 *            the codes of the relation types to be ignored
+	 * @return the ids of the related synsets
+	 * @see RelationRegistry#toMask(String[])
+	 */
+	public ArrayList<String> getRelatedSynsetIds(String synsetId, BitSet excludedCodes) {
+		ArrayList<String> ret = new ArrayList<String>();
+		Synset.RelationGroups groups = synsetsMap.get(synsetId).getRelationGroups();
+		for (int group = 0; group < groups.codes.length; group++)
+			if (!RelationRegistry.inMask(groups.codes[group], excludedCodes))
+				for (int i = groups.start(group); i < groups.ends[group]; i++)
+					ret.add(groups.relations[i].targetSynset);
+		return ret;
+	}
+
+	/**
+	 * Returns an unmodifiable list of the relations pointing at a synset (its
+	 * incoming edges), of any type.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @return the relations whose target is the reference synset
+	 */
+	public List<Relation> getIncomingRelations(String synsetId) {
+		ArrayList<Relation> edges = incoming.get(synsetId);
+		if (edges == null)
+			return Collections.emptyList();
+		return Collections.unmodifiableList(edges);
+	}
+
+	/**
+	 * Returns an ArrayList of String objects that represent the ids of the
+	 * synsets that point at a reference synset through the relation specified
+	 * by the 'relation' argument. This is the reverse of
+	 * getRelatedSynsetIds(): getIncomingSynsetIds(x, "hypernym") returns the
+	 * synsets having x as hypernym.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @param relation
+	 *            the relation that needs to occur between another synset and
+	 *            the reference synset, or "*" for any relation
+	 * @return the ids of the synsets that satisfy the given relation towards
+	 *         the reference synset
+	 */
+	public ArrayList<String> getIncomingSynsetIds(String synsetId, String relation) {
+		if (!"*".equals(relation)) {
+			int code = RelationRegistry.getCode(relation);
+			if (code == RelationRegistry.UNKNOWN)
+				return new ArrayList<String>();
+			return getIncomingSynsetIds(synsetId, code);
+		}
+
+		ArrayList<String> ret = new ArrayList<String>();
+		ArrayList<Synset> owners = incomingOwners.get(synsetId);
+		if (owners != null)
+			for (Synset owner : owners)
+				ret.add(owner.getId());
+		return ret;
+	}
+
+	/**
+	 * Returns the ids of the synsets that point at a reference synset through
+	 * the relation type having a given code.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @param relationCode
+	 *            the relation type's code, as assigned by the RelationRegistry
+	 * @return the ids of the synsets that satisfy the given relation towards
+	 *         the reference synset
+	 * @see getIncomingSynsetIds(String synsetId, String relation)
+	 */
+	public ArrayList<String> getIncomingSynsetIds(String synsetId, int relationCode) {
+		ArrayList<String> ret = new ArrayList<String>();
+		ArrayList<Relation> edges = incoming.get(synsetId);
+		if (edges == null)
+			return ret;
+		ArrayList<Synset> owners = incomingOwners.get(synsetId);
+		for (int i = 0; i < edges.size(); i++)
+			if (edges.get(i).code == relationCode)
+				ret.add(owners.get(i).getId());
+		return ret;
+	}
+
+	/**
+	 * Returns the ids of the synsets that point at a reference synset through
+	 * any relation type whose code is not part of an exclusion mask. The ids
+	 * are grouped by relation type, the types following the order in which
+	 * they first appear among the incoming relations.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @param excludedCodes
+	 *            the codes of the relation types to be ignored
+	 * @return the ids of the synsets pointing at the reference synset
+	 * @see RelationRegistry#toMask(String[])
+	 */
+	public ArrayList<String> getIncomingSynsetIds(String synsetId, BitSet excludedCodes) {
+		ArrayList<String> ret = new ArrayList<String>();
+		ArrayList<Relation> edges = incoming.get(synsetId);
+		if (edges == null)
+			return ret;
+		ArrayList<Synset> owners = incomingOwners.get(synsetId);
+		// codes already taken, shifted by one so that UNKNOWN has a bit too
+		BitSet taken = new BitSet();
+		for (int i = 0; i < edges.size(); i++) {
+			int code = edges.get(i).code;
+			if (RelationRegistry.inMask(code, excludedCodes) || taken.get(code + 1))
+				continue;
+			taken.set(code + 1);
+			for (int j = i; j < edges.size(); j++)
+				if (edges.get(j).code == code)
+					ret.add(owners.get(j).getId());
 		}
 		return ret;
 	}
 
 	/**
-	 * Returns the ids of the synsets that contain a given literal.
+	 * Returns an ArrayList containing the synsets that point at a reference
+	 * synset through the relation specified by the 'relation' argument.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @param relation
+	 *            the relation that needs to occur between another synset and
+	 *            the reference synset, or "*" for any relation
+	 * @return the synsets that satisfy the given relation towards the
+	 *         reference synset
+	 * @see getIncomingSynsetIds(String synsetId, String relation)
+	 */
+	public ArrayList<Synset> getIncomingSynsets(String synsetId, String relation) {
+		ArrayList<Synset> ret = new ArrayList<Synset>();
+		for (String id : getIncomingSynsetIds(synsetId, relation))
+			ret.add(synsetsMap.get(id));
+		return ret;
+	}
+
+	/**
+	 * Returns the ids of the synsets that contain a given literal. If the
+	 * literal's sense is null, any sense of the word is matched.
 	 *
 	 * @param literal
 	 *            the searched literal
@@ -456,14 +1212,123 @@ public class RoWordNet implements Cloneable, Serializable {
 	 */
 	public ArrayList<String> getIdsFromLiteral(Literal literal) {
 		ArrayList<String> ret = new ArrayList<String>();
-		for (Synset s : synsetsMap.values()) {
-			if (s.literals != null)
-				if (s.literals.contains(literal))
-					ret.add(s.getId());
+		if (!mightContainWord(literal.literal))
+			return ret;
+		if (literal.sense == null) {
+			ArrayList<String> ids = words.get(literal.literal);
+			if (ids != null)
+				ret.addAll(ids);
+			return ret;
+		}
+
+		ArrayList<String> ids = senses.get(literal);
+		if (ids != null)
+			for (String id : ids)
+				if (!ret.contains(id))
+					ret.add(id);
+		// literals stored without a sense match any sense
+		ids = senses.get(new Literal(literal.literal));
+		if (ids != null)
+			for (String id : ids)
+				if (!ret.contains(id))
+					ret.add(id);
+		return ret;
+	}
+
+	/**
+	 * Returns the words of the dictionary that match a given word regardless
+	 * of case and of the cedilla / comma below variants of ș and ț, and
+	 * optionally regardless of diacritics (see RomanianNormalizer).
+	 *
+	 * @param word
+	 *            the searched word, as typed
+	 * @param ignoreDiacritics
+	 *            whether words that differ only by diacritics match too
+	 * @return the matching words of the dictionary, as stored in it
+	 */
+	public ArrayList<String> getMatchingWords(String word, boolean ignoreDiacritics) {
+		ArrayList<String> ret = new ArrayList<String>();
+		String folded = RomanianNormalizer.strip(word);
+		if (!mightContainWord(folded))
+			return ret;
+		ArrayList<String> variants = foldedWords.get(folded);
+		if (variants == null)
+			return ret;
+		if (ignoreDiacritics) {
+			ret.addAll(variants);
+			return ret;
 		}
+		String key = RomanianNormalizer.normalize(word);
+		for (String variant : variants)
+			if (key.equals(RomanianNormalizer.normalize(variant)))
+				ret.add(variant);
 		return ret;
 	}
 
+	/**
+	 * Returns the ids of the synsets that contain a word matching a given one,
+	 * in the sense of getMatchingWords().
+	 *
+	 * @param word
+	 *            the searched word, as typed
+	 * @param ignoreDiacritics
+	 *            whether words that differ only by diacritics match too
+	 * @return the ids of the synsets containing a matching word
+	 */
+	public ArrayList<String> getIdsFromMatchingWords(String word, boolean ignoreDiacritics) {
+		ArrayList<String> variants = getMatchingWords(word, ignoreDiacritics);
+		if (variants.size() == 1)
+			return new ArrayList<String>(words.get(variants.get(0)));
+		LinkedHashSet<String> ids = new LinkedHashSet<String>();
+		for (String variant : variants)
+			ids.addAll(words.get(variant));
+		return new ArrayList<String>(ids);
+	}
+
+	/**
+	 * Returns the ids of the synsets mapped to a given Princeton WordNet 2.0
+	 * synset (the synsets listing it in their pwn20 field).
+	 *
+	 * @param pwnId
+	 *            the PWN 2.0 id
+	 * @return the ids of the mapped synsets, empty if there are none
+	 */
+	public ArrayList<String> getIdsFromPwn20(String pwnId) {
+		ArrayList<String> ids = pwn20Index.get(pwnId);
+		return ids == null ? new ArrayList<String>() : new ArrayList<String>(ids);
+	}
+
+	/**
+	 * Returns the synsets mapped to a given Princeton WordNet 2.0 synset.
+	 *
+	 * @param pwnId
+	 *            the PWN 2.0 id
+	 * @return the mapped synsets, empty if there are none
+	 */
+	public ArrayList<Synset> getSynsetsFromPwn20(String pwnId) {
+		ArrayList<Synset> ret = new ArrayList<Synset>();
+		ArrayList<String> ids = pwn20Index.get(pwnId);
+		if (ids != null)
+			for (String id : ids)
+				ret.add(synsetsMap.get(id));
+		return ret;
+	}
+
+	/**
+	 * Returns the Princeton WordNet 2.0 ids a synset is mapped to.
+	 *
+	 * @param synsetId
+	 *            the id of the synset
+	 * @return the synset's PWN 2.0 ids, empty if the synset does not exist or
+	 *         has none
+	 */
+	public ArrayList<String> getPwn20Ids(String synsetId) {
+		Synset s = synsetsMap.get(synsetId);
+		if (s == null || s.pwn20 == null)
+			return new ArrayList<String>();
+		return new ArrayList<String>(s.pwn20);
+	}
+
 	/**
 	 * Returns an ArrayList of synsets that contain a given literal.
 	 *
@@ -473,9 +1338,8 @@ public class RoWordNet implements Cloneable, Serializable {
 	 */
 	public ArrayList<Synset> getSynsetsFromLiteral(Literal literal) {
 		ArrayList<Synset> ret = new ArrayList<Synset>();
-		for (Synset s : synsetsMap.values())
-			if (s.literals != null && s.literals.contains(literal))
-				ret.add(s);
+		for (String id : getIdsFromLiteral(literal))
+			ret.add(synsetsMap.get(id));
 
 		return ret;
 	}
@@ -487,20 +1351,106 @@ public class RoWordNet implements Cloneable, Serializable {
 	 * @param literal
 	 *            the searched literal
 	 * @param pos
-	 *            the required pos
+	 *            the required pos, as written in the XML file ("n", "v", "r"
+	 *            or "a")
 	 * @return the synsets that contain the given literal and have the required
-	 *         pos
+	 *         pos; an empty list if pos is null or not one of the above
 	 */
 	public ArrayList<Synset> getSynsetsFromLiteral(Literal literal, String pos) {
 		ArrayList<Synset> ret = new ArrayList<Synset>();
-		for (Synset s : synsetsMap.values())
-			if (s.literals != null && s.literals.contains(literal) && s
-					.getPos().equals(pos))
+		Synset.Type type = pos == null ? null : Synset.stringToType(pos);
+		if (type == null)
+			return ret;
+		for (String id : getIdsFromLiteral(literal)) {
+			Synset s = synsetsMap.get(id);
+			if (s.getPos() == type)
 				ret.add(s);
+		}
 
 		return ret;
 	}
 
+	/**
+	 * Returns the words of the dictionary that start with a given prefix,
+	 * the ones with the most senses first.
+	 *
+	 * @param prefix
+	 *            the prefix typed so far
+	 * @param k
+	 *            the maximum number of completions
+	 * @return at most k words starting with the prefix, by decreasing number of
+	 *         senses (ties in alphabetical order)
+	 */
+	public ArrayList<String> completeLiteral(String prefix, int k) {
+		return literalTrie.complete(prefix, k);
+	}
+
+	/**
+	 * Returns the words of the dictionary that start with a given prefix and
+	 * have senses with a certain pos, the ones with the most such senses
+	 * first.
+	 *
+	 * @param prefix
+	 *            the prefix typed so far
+	 * @param k
+	 *            the maximum number of completions
+	 * @param pos
+	 *            the required pos
+	 * @return at most k words starting with the prefix, by decreasing number of
+	 *         senses with the required pos (ties in alphabetical order)
+	 */
+	public ArrayList<String> completeLiteral(String prefix, int k, Synset.Type pos) {
+		return literalTrie.complete(prefix, k, pos);
+	}
+
+	/**
+	 * Returns the words of the dictionary within a given edit (Levenshtein)
+	 * distance of a word, e.g. to suggest corrections for a misspelled word.
+	 *
+	 * @param word
+	 *            the searched word
+	 * @param maxDistance
+	 *            the greatest number of inserted, deleted or replaced
+	 *            characters (1 or 2 in practice)
+	 * @return the words within maxDistance of the searched word, the closest
+	 *         first, then by decreasing number of senses
+	 */
+	public ArrayList<String> getSimilarWords(String word, int maxDistance) {
+		return literalTrie.findSimilar(word, maxDistance);
+	}
+
+	/**
+	 * Returns the words of the dictionary closest to a word, within a given
+	 * edit (Levenshtein) distance.
+	 *
+	 * @param word
+	 *            the searched word
+	 * @param maxDistance
+	 *            the greatest number of inserted, deleted or replaced
+	 *            characters (1 or 2 in practice)
+	 * @param k
+	 *            the maximum number of words returned
+	 * @return at most k words within maxDistance of the searched word, the
+	 *         closest first, then by decreasing number of senses
+	 */
+	public ArrayList<String> getSimilarWords(String word, int maxDistance, int k) {
+		return literalTrie.findSimilar(word, maxDistance, k);
+	}
+
+	/**
+	 * Returns the number of senses of a word, i.e. the number of literals
+	 * having the word, optionally restricted to a certain pos.
+	 *
+	 * @param word
+	 *            the word
+	 * @param pos
+	 *            the required pos, or null for any pos
+	 * @return the number of senses of the word
+	 */
+	public int getSenseCount(String word, Synset.Type pos) {
+		return literalTrie.getCount(word, pos);
+	}
+
 	/**
 	 * Returns an ArrayList containing synsets that relate with a reference
 	 * synset in a manner specified by the 'relation' argument.
@@ -516,10 +1466,8 @@ public class RoWordNet implements Cloneable, Serializable {
 	 */
 	public ArrayList<Synset> getRelatedSynsets(String synsetId, String relation) {
 		ArrayList<Synset> ret = new ArrayList<Synset>();
-		Synset s = synsetsMap.get(synsetId);
-		for (Relation rel : s.getRelations())
-			if ("*".equals(relation) || rel.relation.equals(relation))
-				ret.add(synsetsMap.get(rel.targetSynset));
+		for (String id : getRelatedSynsetIds(synsetId, relation))
+			ret.add(synsetsMap.get(id));
 
 		return ret;
 	}
@@ -533,10 +1481,12 @@ public class RoWordNet implements Cloneable, Serializable {
 	 * @return true if the literal is found in any synset, false otherwise
 	 */
 	public boolean containsLiteral(Literal literal) {
-		for (Synset s : synsetsMap.values())
-			if (s.literals != null && s.literals.contains(literal))
-				return true;
-		return false;
+		if (!mightContainWord(literal.literal))
+			return false;
+		if (literal.sense == null)
+			return words.containsKey(literal.literal);
+		return senses.containsKey(literal) || senses
+				.containsKey(new Literal(literal.literal));
 	}
 
 	/**
@@ -545,15 +1495,14 @@ public class RoWordNet implements Cloneable, Serializable {
 	 * returned.
 	 *
 	 * @param literal
-	 * @return
+	 * @return the synset containing the literal, or null if no synset contains
+	 *         it
 	 */
 	public Synset getSynsetFromLiteral(Literal literal) {
-		for (Synset s : synsetsMap.values())
-			if (s.literals != null && s.literals.contains(literal))
-				for (Literal l : s.literals)
-					if (l.sense.equals(literal.sense))
-						return s;
-		return null;
+		ArrayList<String> ids = getIdsFromLiteral(literal);
+		if (ids.isEmpty())
+			return null;
+		return synsetsMap.get(ids.get(0));
 	}
 
 	/**
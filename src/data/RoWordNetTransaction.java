@@ -0,0 +1,307 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RecursiveAction;
+
+import utils.WorkerPool;
+
+/**
+ * Set of changes to a RoWordNet object (adds, overwrites and removals of
+ * synsets) applied all at once. Obtained from RoWordNet.newTransaction().
+ * <p>
+ * The changes are only staged until commit() is called. The commit first
+ * replays them in order against the dictionary to validate them, and
+ * applies nothing if any of them is invalid. Otherwise only the final state
+ * of each touched id counts: the removals are applied first (dropping the
+ * relations of the remaining synsets that point at the removed ids), then
+ * the adds and overwrites. A synset removed and added back in the same
+ * transaction is thus simply overwritten.
+ * </p>
+ * <p>
+ * Small transactions are applied with the incremental addSynset() and
+ * removeSynset() methods. Large ones are applied to the synsets list and map
+ * directly, in one pass, followed by a single rebuild of the derived
+ * indexes; the per-synset work (relation cleanup and grouping) runs in
+ * parallel.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class RoWordNetTransaction {
+
+	/**
+	 * A transaction touching fewer than 1 / INCREMENTAL_RATIO of the
+	 * dictionary's synsets is applied incrementally.
+	 */
+	static final int				INCREMENTAL_RATIO	= 8;
+
+	/**
+	 * Number of synsets below which the per-synset work is not split further.
+	 */
+	static final int				PARALLEL_THRESHOLD	= 2048;
+
+	final RoWordNet					rown;
+
+	/**
+	 * The staged synsets, in order; null marks the removal of ids.get(i).
+	 */
+	final ArrayList<Synset>			synsets				= new ArrayList<Synset>();
+	final ArrayList<String>			ids					= new ArrayList<String>();
+	final ArrayList<Boolean>		overwrite			= new ArrayList<Boolean>();
+
+	boolean							committed;
+
+	RoWordNetTransaction(RoWordNet rown) {
+		this.rown = rown;
+	}
+
+	/**
+	 * Stages the addition of a synset.
+	 *
+	 * @param synset
+	 *            Synset to be added; a read-only view handed out by a compact
+	 *            FrozenRoWordNet is staged as its materialized Synset
+	 * @param overwrite
+	 *            boolean specifying if the new synset may overwrite an existing
+	 *            synset; if false and the id exists, the commit fails
+	 * @return this transaction
+	 */
+	public RoWordNetTransaction addSynset(Synset synset, boolean overwrite) {
+		checkOpen();
+		if (synset == null)
+			throw new IllegalArgumentException("Cannot add a null synset.");
+		synsets.add(synset.modifiable());
+		ids.add(synset.getId());
+		this.overwrite.add(overwrite);
+		return this;
+	}
+
+	/**
+	 * Stages the addition of several synsets.
+	 *
+	 * @see addSynset(Synset synset, boolean overwrite)
+	 */
+	public RoWordNetTransaction addSynsets(Synset[] synsets, boolean overwrite) {
+		for (Synset synset : synsets)
+			addSynset(synset, overwrite);
+		return this;
+	}
+
+	/**
+	 * Stages the removal of a synset; the commit fails if the synset does not
+	 * exist at that point of the transaction.
+	 *
+	 * @param id
+	 *            the id of the synset to be removed
+	 * @return this transaction
+	 */
+	public RoWordNetTransaction removeSynset(String id) {
+		checkOpen();
+		synsets.add(null);
+		ids.add(id);
+		overwrite.add(Boolean.FALSE);
+		return this;
+	}
+
+	/**
+	 * Stages the removal of several synsets.
+	 *
+	 * @see removeSynset(String id)
+	 */
+	public RoWordNetTransaction removeSynsets(Collection<String> ids) {
+		for (String id : ids)
+			removeSynset(id);
+		return this;
+	}
+
+	/**
+	 * @return the number of staged changes
+	 */
+	public int size() {
+		return synsets.size();
+	}
+
+	private void checkOpen() {
+		if (committed)
+			throw new IllegalStateException("The transaction was already committed.");
+	}
+
+	/**
+	 * Method that replays the staged changes against the current content of
+	 * the dictionary, without applying them.
+	 *
+	 * @return the problems found, one message per invalid change; empty if
+	 *         the transaction can be committed
+	 */
+	public ArrayList<String> validate() {
+		ArrayList<String> errors = new ArrayList<String>();
+		replay(errors);
+		return errors;
+	}
+
+	/**
+	 * Replays the staged changes, collecting the errors, and returns the final
+	 * state of every touched id: the synset to be stored, or null if the id
+	 * is to be removed.
+	 */
+	private LinkedHashMap<String, Synset> replay(ArrayList<String> errors) {
+		LinkedHashMap<String, Synset> state = new LinkedHashMap<String, Synset>();
+		for (int i = 0; i < synsets.size(); i++) {
+			String id = ids.get(i);
+			Synset s = synsets.get(i);
+			if (id == null) {
+				errors.add("Change " + i + ": the synset id is null.");
+				continue;
+			}
+			boolean exists = state.containsKey(id) ? state.get(id) != null : rown.synsetsMap.containsKey(id);
+			if (s == null && !exists)
+				errors.add("Change " + i + ": cannot remove synset " + id + ", it does not exist.");
+			else if (s != null && exists && !overwrite.get(i))
+				errors.add("Change " + i + ": synset " + id + " already exists.");
+			else
+				state.put(id, s);
+		}
+		return state;
+	}
+
+	/**
+	 * Validates and applies the staged changes. If any change is invalid,
+	 * nothing is applied. A transaction can be committed only once.
+	 *
+	 * @throws IllegalStateException
+	 *             if a staged change is invalid (the message lists all the
+	 *             problems) or if the transaction was already committed
+	 */
+	public void commit() {
+		checkOpen();
+		ArrayList<String> errors = new ArrayList<String>();
+		LinkedHashMap<String, Synset> state = replay(errors);
+		if (!errors.isEmpty()) {
+			StringBuilder message = new StringBuilder("Transaction rejected, nothing was applied:");
+			for (String error : errors)
+				message.append("\n\t").append(error);
+			throw new IllegalStateException(message.toString());
+		}
+		committed = true;
+
+		ArrayList<String> removed = new ArrayList<String>();
+		ArrayList<Synset> added = new ArrayList<Synset>();
+		for (Map.Entry<String, Synset> e : state.entrySet())
+			if (e.getValue() != null)
+				added.add(e.getValue());
+			else if (rown.synsetsMap.containsKey(e.getKey()))
+				removed.add(e.getKey());
+
+		if ((long) (removed.size() + added.size()) * INCREMENTAL_RATIO < rown.synsets.size()) {
+			for (String id : removed)
+				rown.removeSynset(id);
+			for (Synset s : added)
+				rown.addSynset(s, true);
+			return;
+		}
+		applyBulk(removed, added);
+	}
+
+	private void applyBulk(ArrayList<String> removed, ArrayList<Synset> added) {
+		ArrayList<Synset> list = rown.synsets;
+
+		// removals, in a single pass keeping the order of the list as
+		// removeSynsets() does
+		final HashSet<String> removedIds = new HashSet<String>(removed);
+		if (!removed.isEmpty()) {
+			Set<Synset> removedSynsets = Collections.newSetFromMap(new IdentityHashMap<Synset, Boolean>());
+			for (String id : removed)
+				removedSynsets.add(rown.synsetsMap.remove(id));
+			rown.removeFromList(removedSynsets);
+			rown.buildPositions();
+		}
+		if (!removedIds.isEmpty())
+			forEachSynset(list, new SynsetAction() {
+				@Override
+				void apply(Synset s) {
+					ArrayList<Relation> relations = s.getRelations();
+					if (relations == null)
+						return;
+					boolean changed = false;
+					for (Iterator<Relation> it = relations.iterator(); it.hasNext();)
+						if (removedIds.contains(it.next().targetSynset)) {
+							it.remove();
+							changed = true;
+						}
+					if (changed)
+						s.relationGroups = null;
+				}
+			});
+
+		// adds and overwrites, the overwritten synsets keeping their slot
+		for (Synset s : added) {
+			Synset old = rown.synsetsMap.get(s.getId());
+			int pos = old == null ? -1 : rown.positionOf(old);
+			if (pos < 0) {
+				rown.positions.put(s.getId(), list.size());
+				list.add(s);
+			} else
+				list.set(pos, s);
+			rown.synsetsMap.put(s.getId(), s);
+		}
+
+		forEachSynset(list, new SynsetAction() {
+			@Override
+			void apply(Synset s) {
+				s.getRelationGroups();
+			}
+		});
+		rown.buildIndexes();
+	}
+
+	/**
+	 * Work done independently on each synset of a list.
+	 */
+	private static abstract class SynsetAction {
+		abstract void apply(Synset s);
+	}
+
+	private static void forEachSynset(ArrayList<Synset> list, SynsetAction action) {
+		if (list.size() < PARALLEL_THRESHOLD) {
+			for (Synset s : list)
+				action.apply(s);
+			return;
+		}
+		WorkerPool.get().invoke(new SynsetTask(list, action, 0, list.size()));
+	}
+
+	private static final class SynsetTask extends RecursiveAction {
+		private static final long	serialVersionUID	= 5302648730137712953L;
+
+		final ArrayList<Synset>		list;
+		final SynsetAction			action;
+		final int					from, to;
+
+		SynsetTask(ArrayList<Synset> list, SynsetAction action, int from, int to) {
+			this.list = list;
+			this.action = action;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_THRESHOLD) {
+				for (int i = from; i < to; i++)
+					action.apply(list.get(i));
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new SynsetTask(list, action, from, mid), new SynsetTask(list, action, mid, to));
+		}
+	}
+}
@@ -0,0 +1,294 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+import utils.PersistentHashMap;
+
+/**
+ * Immutable version of a dictionary, sharing its structure with the versions
+ * it was derived from.
+ * <p>
+ * The synsets and the word index are kept in persistent hash maps: an edit
+ * (withSynset(), withoutSynset()) returns a new version and copies only the
+ * trie paths leading to the touched synset and words, leaving the original
+ * version intact. Forking is therefore free: any version can be kept and
+ * edited independently of the others, the retained versions costing only
+ * their differences.
+ * </p>
+ * <p>
+ * The synsets are copied (Synset.copy()) when they enter a version, so later
+ * changes made by the caller to the added objects do not leak into it. The
+ * synsets returned by a version are shared with the other versions and must
+ * not be modified; copy them before editing, and use withSynset() to store
+ * the result.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public final class RoWordNetVersion implements Iterable<Synset> {
+
+	/**
+	 * The version without synsets.
+	 */
+	public static final RoWordNetVersion				EMPTY	= new RoWordNetVersion(
+																		PersistentHashMap.<String, Synset> empty(),
+																		PersistentHashMap.<String, String[]> empty());
+
+	/**
+	 * The synsets of the version, keyed by their id.
+	 */
+	final PersistentHashMap<String, Synset>		synsets;
+
+	/**
+	 * The ids of the synsets containing each word, in the order the synsets
+	 * were added.
+	 */
+	final PersistentHashMap<String, String[]>	words;
+
+	private RoWordNetVersion(PersistentHashMap<String, Synset> synsets, PersistentHashMap<String, String[]> words) {
+		this.synsets = synsets;
+		this.words = words;
+	}
+
+	/**
+	 * Builds a version holding copies of the synsets of a RoWordNet object.
+	 *
+	 * @param rown
+	 *            the dictionary
+	 * @return the version
+	 */
+	public static RoWordNetVersion of(RoWordNet rown) {
+		RoWordNetVersion version = EMPTY;
+		for (Synset s : rown.synsets)
+			if (rown.synsetsMap.get(s.getId()) == s)
+				version = version.withSynset(s);
+		return version;
+	}
+
+	/**
+	 * @return the number of synsets in the version
+	 */
+	public int size() {
+		return synsets.size();
+	}
+
+	/**
+	 * Returns the synset whose id corresponds to the one passed as argument, or
+	 * null if no such synset is found. The synset must not be modified.
+	 *
+	 * @param id
+	 *            the id of the targeted synset
+	 * @return the synset with the specified id
+	 */
+	public Synset getSynsetById(String id) {
+		return synsets.get(id);
+	}
+
+	public boolean containsSynset(String id) {
+		return synsets.containsKey(id);
+	}
+
+	/**
+	 * Returns a version in which a synset is added, or replaces the synset
+	 * with the same id. This version is not changed.
+	 *
+	 * @param synset
+	 *            the synset; a copy of it is stored
+	 * @return the new version
+	 */
+	public RoWordNetVersion withSynset(Synset synset) {
+		return withOwnedSynset(synset.copy());
+	}
+
+	/**
+	 * Same as withSynset(), but stores the given object itself, which the
+	 * caller must not keep modifying.
+	 */
+	RoWordNetVersion withOwnedSynset(Synset s) {
+		PersistentHashMap<String, String[]> newWords = words;
+		Synset old = synsets.get(s.getId());
+		if (old != null)
+			newWords = unindex(newWords, old);
+		newWords = index(newWords, s);
+		return new RoWordNetVersion(synsets.with(s.getId(), s), newWords);
+	}
+
+	/**
+	 * Returns a version without the synset having a given id. This version is
+	 * not changed.
+	 *
+	 * @param id
+	 *            the synset's id
+	 * @return the new version, or this version if it has no such synset
+	 */
+	public RoWordNetVersion withoutSynset(String id) {
+		Synset old = synsets.get(id);
+		if (old == null)
+			return this;
+		return new RoWordNetVersion(synsets.without(id), unindex(words, old));
+	}
+
+	private static PersistentHashMap<String, String[]> index(PersistentHashMap<String, String[]> words, Synset s) {
+		ArrayList<Literal> literals = s.getLiterals();
+		if (literals == null)
+			return words;
+		String id = s.getId();
+		for (Literal l : literals) {
+			String[] ids = words.get(l.literal);
+			if (ids == null)
+				ids = new String[] { id };
+			else if (ids[ids.length - 1].equals(id))
+				continue; // the same word with several senses
+			else {
+				ids = Arrays.copyOf(ids, ids.length + 1);
+				ids[ids.length - 1] = id;
+			}
+			words = words.with(l.literal, ids);
+		}
+		return words;
+	}
+
+	private static PersistentHashMap<String, String[]> unindex(PersistentHashMap<String, String[]> words, Synset s) {
+		ArrayList<Literal> literals = s.getLiterals();
+		if (literals == null)
+			return words;
+		String id = s.getId();
+		for (Literal l : literals) {
+			String[] ids = words.get(l.literal);
+			if (ids == null)
+				continue;
+			int i = Arrays.asList(ids).indexOf(id);
+			if (i < 0)
+				continue;
+			if (ids.length == 1) {
+				words = words.without(l.literal);
+				continue;
+			}
+			String[] newIds = new String[ids.length - 1];
+			System.arraycopy(ids, 0, newIds, 0, i);
+			System.arraycopy(ids, i + 1, newIds, i, newIds.length - i);
+			words = words.with(l.literal, newIds);
+		}
+		return words;
+	}
+
+	/**
+	 * Returns the ids of the synsets that contain a given literal. If the
+	 * literal's sense is null, any sense of the word is matched; otherwise
+	 * literals stored without a sense match as well, as in RoWordNet.
+	 *
+	 * @param literal
+	 *            the searched literal
+	 * @return the ids of the synsets that contain the searched literal
+	 */
+	public ArrayList<String> getIdsFromLiteral(Literal literal) {
+		ArrayList<String> ret = new ArrayList<String>();
+		String[] ids = words.get(literal.literal);
+		if (ids == null)
+			return ret;
+		if (literal.sense == null) {
+			ret.addAll(Arrays.asList(ids));
+			return ret;
+		}
+
+		for (String id : ids)
+			if (hasLiteral(synsets.get(id), literal.literal, literal.sense))
+				ret.add(id);
+		for (String id : ids)
+			if (!ret.contains(id) && hasLiteral(synsets.get(id), literal.literal, null))
+				ret.add(id);
+		return ret;
+	}
+
+	/**
+	 * Checks whether a synset has a literal with the given word and sense (a
+	 * null sense matching only literals without a sense).
+	 */
+	private static boolean hasLiteral(Synset s, String word, String sense) {
+		for (Literal l : s.getLiterals())
+			if (word.equals(l.literal) && (sense == null ? l.sense == null : sense.equals(l.sense)))
+				return true;
+		return false;
+	}
+
+	/**
+	 * Returns the synsets that contain a given literal.
+	 *
+	 * @param literal
+	 *            the searched literal
+	 * @return the synsets that contain the given literal
+	 * @see getIdsFromLiteral(Literal)
+	 */
+	public ArrayList<Synset> getSynsetsFromLiteral(Literal literal) {
+		ArrayList<Synset> ret = new ArrayList<Synset>();
+		for (String id : getIdsFromLiteral(literal))
+			ret.add(synsets.get(id));
+		return ret;
+	}
+
+	/**
+	 * Returns the ids of the synsets that relate with a reference synset in a
+	 * manner specified by the 'relation' argument, in the order of the
+	 * reference synset's relation list.
+	 *
+	 * @param synsetId
+	 *            the id of the reference synset
+	 * @param relation
+	 *            the relation's name, or "*" for any relation
+	 * @return the ids of the related synsets, or an empty list if the version
+	 *         has no synset with the given id
+	 */
+	public ArrayList<String> getRelatedSynsetIds(String synsetId, String relation) {
+		ArrayList<String> ret = new ArrayList<String>();
+		Synset s = synsets.get(synsetId);
+		if (s == null || s.getRelations() == null)
+			return ret;
+		boolean all = "*".equals(relation);
+		for (Relation r : s.getRelations())
+			if (all || relation.equals(r.relation))
+				ret.add(r.targetSynset);
+		return ret;
+	}
+
+	/**
+	 * Iterates over the synsets of the version, in no particular order.
+	 */
+	@Override
+	public Iterator<Synset> iterator() {
+		final Iterator<Map.Entry<String, Synset>> entries = synsets.iterator();
+		return new Iterator<Synset>() {
+			@Override
+			public boolean hasNext() {
+				return entries.hasNext();
+			}
+
+			@Override
+			public Synset next() {
+				return entries.next().getValue();
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Builds a mutable RoWordNet object holding copies of the version's
+	 * synsets, e.g. to serialize the version or to use the RoWordNet
+	 * operations on it.
+	 *
+	 * @return the dictionary
+	 */
+	public RoWordNet toRoWordNet() {
+		ArrayList<Synset> list = new ArrayList<Synset>(size());
+		for (Synset s : this)
+			list.add(s.copy());
+		return new RoWordNet(list);
+	}
+}
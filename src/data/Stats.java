@@ -0,0 +1,366 @@
+package data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+import utils.WorkerPool;
+
+/**
+ * Statistics of a dictionary: synset and literal counts per POS, relation
+ * type frequencies and the distribution of the synsets' degrees. Obtained
+ * from RoWordNet.computeStats(); toString() renders them as text.
+ * <p>
+ * The statistics are computed in a single pass over the synsets, split into
+ * ranges that are processed in parallel and whose counters are then summed.
+ * The unique literals (distinct word and sense pairs) are counted with the
+ * dictionary's literal index: a synset counts a literal as unique in its POS
+ * if it is the first synset of that POS listed for the literal, so no set of
+ * literals is built.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class Stats {
+
+	/**
+	 * Number of synsets below which a range is not split further.
+	 */
+	static final int	PARALLEL_THRESHOLD	= 4096;
+
+	static final int	POS_COUNT			= Synset.Type.values().length;
+
+	int					synsets;
+	int					literals;
+	int					uniqueLiterals;
+	int					nonLexicalized;
+	int					relations;
+
+	/**
+	 * Counters per POS, indexed by the POS ordinal.
+	 */
+	final int[]			posSynsets			= new int[POS_COUNT];
+	final int[]			posLiterals			= new int[POS_COUNT];
+	final int[]			posUniqueLiterals	= new int[POS_COUNT];
+	final int[]			posNonLexicalized	= new int[POS_COUNT];
+
+	/**
+	 * Number of relations per type code (see RelationRegistry); the relations
+	 * without a type are counted by untypedRelations.
+	 */
+	int[]				relationCounts		= new int[0];
+	int					untypedRelations;
+
+	/**
+	 * Number of synsets per number of outgoing (resp. incoming) relations.
+	 */
+	int[]				outDegrees			= new int[0];
+	int[]				inDegrees			= new int[0];
+
+	Stats() {
+	}
+
+	/**
+	 * Computes the statistics of a dictionary.
+	 */
+	static Stats compute(RoWordNet rown) {
+		StatsTask task = new StatsTask(rown, 0, rown.synsets.size());
+		if (rown.synsets.size() < PARALLEL_THRESHOLD)
+			return task.compute();
+		return WorkerPool.get().invoke(task);
+	}
+
+	private static final class StatsTask extends RecursiveTask<Stats> {
+		private static final long	serialVersionUID	= -6126472373916283504L;
+
+		final RoWordNet				rown;
+		final int					from, to;
+
+		StatsTask(RoWordNet rown, int from, int to) {
+			this.rown = rown;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Stats compute() {
+			if (to - from <= PARALLEL_THRESHOLD) {
+				Stats stats = new Stats();
+				for (int i = from; i < to; i++) {
+					Synset s = rown.synsets.get(i);
+					if (rown.synsetsMap.get(s.getId()) == s)
+						stats.add(rown, s);
+				}
+				return stats;
+			}
+			int mid = (from + to) >>> 1;
+			StatsTask right = new StatsTask(rown, mid, to);
+			right.fork();
+			Stats stats = new StatsTask(rown, from, mid).compute();
+			stats.merge(right.join());
+			return stats;
+		}
+	}
+
+	/**
+	 * Counts a synset of the dictionary.
+	 */
+	private void add(RoWordNet rown, Synset s) {
+		synsets++;
+		Synset.Type type = s.getPos();
+		int pos = type == null ? -1 : type.ordinal();
+		if (pos >= 0)
+			posSynsets[pos]++;
+		if (s.isNon_lexicalized()) {
+			nonLexicalized++;
+			if (pos >= 0)
+				posNonLexicalized[pos]++;
+		}
+
+		ArrayList<Literal> synsetLiterals = s.getLiterals();
+		if (synsetLiterals != null) {
+			literals += synsetLiterals.size();
+			if (pos >= 0)
+				posLiterals[pos] += synsetLiterals.size();
+			for (int j = 0; j < synsetLiterals.size(); j++)
+				countUnique(rown, s, synsetLiterals, j);
+		}
+
+		int out = 0;
+		if (s.getRelations() != null)
+			for (Relation r : s.getRelations()) {
+				out++;
+				int code = r.getRelationCode();
+				if (code < 0) {
+					untypedRelations++;
+					continue;
+				}
+				if (code >= relationCounts.length)
+					relationCounts = Arrays.copyOf(relationCounts, code + 1);
+				relationCounts[code]++;
+			}
+		relations += out;
+		outDegrees = increment(outDegrees, out);
+
+		ArrayList<Relation> edges = rown.incoming.get(s.getId());
+		inDegrees = increment(inDegrees, edges == null ? 0 : edges.size());
+	}
+
+	/**
+	 * Counts the j-th literal of a synset as unique if the synset is the first
+	 * one having it (among all the synsets for the total count, among the
+	 * synsets with the same POS for the POS count) and the literal does not
+	 * occur earlier in the synset.
+	 */
+	private void countUnique(RoWordNet rown, Synset s, ArrayList<Literal> synsetLiterals, int j) {
+		Literal l = synsetLiterals.get(j);
+		for (int k = 0; k < j; k++) {
+			Literal other = synsetLiterals.get(k);
+			if (equal(l.literal, other.literal) && equal(l.sense, other.sense))
+				return;
+		}
+		ArrayList<String> ids = rown.senses.get(l);
+		if (ids == null || ids.get(0).equals(s.getId()))
+			uniqueLiterals++;
+		Synset.Type type = s.getPos();
+		if (type == null)
+			return;
+		if (ids != null)
+			for (String id : ids) {
+				if (id.equals(s.getId()))
+					break;
+				Synset other = rown.synsetsMap.get(id);
+				if (other != null && other.getPos() == type)
+					return;
+			}
+		posUniqueLiterals[type.ordinal()]++;
+	}
+
+	private static boolean equal(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static int[] increment(int[] histogram, int value) {
+		if (value >= histogram.length)
+			histogram = Arrays.copyOf(histogram, Math.max(value + 1, 2 * histogram.length));
+		histogram[value]++;
+		return histogram;
+	}
+
+	/**
+	 * Adds the counters of another range of synsets.
+	 */
+	private void merge(Stats other) {
+		synsets += other.synsets;
+		literals += other.literals;
+		uniqueLiterals += other.uniqueLiterals;
+		nonLexicalized += other.nonLexicalized;
+		relations += other.relations;
+		untypedRelations += other.untypedRelations;
+		for (int p = 0; p < POS_COUNT; p++) {
+			posSynsets[p] += other.posSynsets[p];
+			posLiterals[p] += other.posLiterals[p];
+			posUniqueLiterals[p] += other.posUniqueLiterals[p];
+			posNonLexicalized[p] += other.posNonLexicalized[p];
+		}
+		relationCounts = sum(relationCounts, other.relationCounts);
+		outDegrees = sum(outDegrees, other.outDegrees);
+		inDegrees = sum(inDegrees, other.inDegrees);
+	}
+
+	private static int[] sum(int[] a, int[] b) {
+		if (b.length > a.length)
+			a = Arrays.copyOf(a, b.length);
+		for (int i = 0; i < b.length; i++)
+			a[i] += b[i];
+		return a;
+	}
+
+	/**
+	 * @return the number of synsets
+	 */
+	public int getSynsetCount() {
+		return synsets;
+	}
+
+	/**
+	 * @param pos
+	 *            the POS
+	 * @return the number of synsets with the given POS
+	 */
+	public int getSynsetCount(Synset.Type pos) {
+		return posSynsets[pos.ordinal()];
+	}
+
+	/**
+	 * @return the number of literals
+	 */
+	public int getLiteralCount() {
+		return literals;
+	}
+
+	/**
+	 * @param pos
+	 *            the POS
+	 * @return the number of literals of the synsets with the given POS
+	 */
+	public int getLiteralCount(Synset.Type pos) {
+		return posLiterals[pos.ordinal()];
+	}
+
+	/**
+	 * @return the number of distinct literals (word and sense pairs)
+	 */
+	public int getUniqueLiteralCount() {
+		return uniqueLiterals;
+	}
+
+	/**
+	 * @param pos
+	 *            the POS
+	 * @return the number of distinct literals of the synsets with the given
+	 *         POS
+	 */
+	public int getUniqueLiteralCount(Synset.Type pos) {
+		return posUniqueLiterals[pos.ordinal()];
+	}
+
+	/**
+	 * @return the number of non-lexicalized synsets
+	 */
+	public int getNonLexicalizedCount() {
+		return nonLexicalized;
+	}
+
+	/**
+	 * @param pos
+	 *            the POS
+	 * @return the number of non-lexicalized synsets with the given POS
+	 */
+	public int getNonLexicalizedCount(Synset.Type pos) {
+		return posNonLexicalized[pos.ordinal()];
+	}
+
+	/**
+	 * @return the number of relations
+	 */
+	public int getRelationCount() {
+		return relations;
+	}
+
+	/**
+	 * @return the number of relations of each type, in the order the types
+	 *         were registered; the relations without a type are counted under
+	 *         the null key
+	 */
+	public LinkedHashMap<String, Integer> getRelationFrequencies() {
+		LinkedHashMap<String, Integer> ret = new LinkedHashMap<String, Integer>();
+		for (int code = 0; code < relationCounts.length; code++)
+			if (relationCounts[code] > 0)
+				ret.put(RelationRegistry.getName(code), relationCounts[code]);
+		if (untypedRelations > 0)
+			ret.put(null, untypedRelations);
+		return ret;
+	}
+
+	/**
+	 * @return an array whose element d is the number of synsets with d
+	 *         outgoing relations
+	 */
+	public int[] getOutDegreeDistribution() {
+		return trim(outDegrees);
+	}
+
+	/**
+	 * @return an array whose element d is the number of synsets that are the
+	 *         target of d relations
+	 */
+	public int[] getInDegreeDistribution() {
+		return trim(inDegrees);
+	}
+
+	private static int[] trim(int[] histogram) {
+		int length = histogram.length;
+		while (length > 0 && histogram[length - 1] == 0)
+			length--;
+		return Arrays.copyOf(histogram, length);
+	}
+
+	/**
+	 * Renders the statistics as text.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("Statistics:");
+		sb.append("\n\t TOTAL Synsets:\t\t").append(synsets);
+		for (Synset.Type pos : Synset.Type.values()) {
+			String name = pos.toString();
+			int p = pos.ordinal();
+			sb.append("\n\t ").append(name).append(" Synsets:\t").append(name.length() < 5 ? "\t" : "").append(
+					posSynsets[p]);
+			sb.append("\n\t\t ").append(name).append(" Literals:\t\t").append(posLiterals[p]);
+			sb.append("\n\t\t ").append(name).append(" Unique Literals:\t\t").append(posUniqueLiterals[p]);
+			sb.append("\n\t\t ").append(name).append(" Non-lexicalized Synsets:\t\t").append(posNonLexicalized[p]);
+		}
+		sb.append("\n\t Total Literals:\t").append(literals);
+		sb.append("\n\t Total Unique Literals:\t").append(uniqueLiterals);
+		sb.append("\n\n\t Number of relations:\t").append(relations);
+		sb.append("\n\t Relation Frequency table:");
+		for (Map.Entry<String, Integer> e : getRelationFrequencies().entrySet())
+			sb.append("\n\t\t").append(e.getKey()).append(": ").append(e.getValue());
+
+		int[] out = getOutDegreeDistribution(), in = getInDegreeDistribution();
+		sb.append("\n\n\t Out-degree distribution (relations: synsets):");
+		for (int d = 0; d < out.length; d++)
+			if (out[d] > 0)
+				sb.append("\n\t\t").append(d).append(": ").append(out[d]);
+		sb.append("\n\t In-degree distribution (relations: synsets):");
+		for (int d = 0; d < in.length; d++)
+			if (in[d] > 0)
+				sb.append("\n\t\t").append(d).append(": ").append(in[d]);
+		return sb.toString();
+	}
+}
@@ -2,6 +2,8 @@ package data;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
 
 /**
  * Synset data structure definition class
@@ -32,6 +34,79 @@ public class Synset implements Serializable{
 
 	double informationContent;
 
+	/**
+	 * The relations grouped by type, built from the relations list when first
+	 * needed. It is dropped when the relations change: by setRelations(),
+	 * RoWordNet.addRelation() and removeRelation(), and by
+	 * Relation.setRelation() on one of the grouped relations.
+	 */
+	transient RelationGroups relationGroups;
+
+	/**
+	 * Immutable grouping of a synset's relations by relation type. The groups
+	 * follow the order in which each type first appears in the relations list,
+	 * and the relations of a group keep their order from the list. The group i
+	 * has the relation code codes[i] and occupies the positions [ends[i-1],
+	 * ends[i]) of the relations array (ends[-1] being 0).
+	 */
+	static final class RelationGroups {
+		static final RelationGroups EMPTY = new RelationGroups(null, null);
+
+		final Relation[] relations;
+		final int[] codes;
+		final int[] ends;
+
+		/**
+		 * The list the relations were grouped from.
+		 */
+		final ArrayList<Relation> source;
+
+		/**
+		 * Groups the relations of a list, recording the owning synset in each
+		 * relation so that changing its type drops the groups.
+		 */
+		RelationGroups(Synset owner, ArrayList<Relation> list) {
+			int m = list == null ? 0 : list.size(), k = 0;
+			this.source = list;
+			int[] distinct = new int[m];
+			for (int i = 0; i < m; i++) {
+				list.get(i).owner = owner;
+				int code = list.get(i).code;
+				int j = 0;
+				while (j < k && distinct[j] != code)
+					j++;
+				if (j == k)
+					distinct[k++] = code;
+			}
+
+			this.relations = new Relation[m];
+			this.codes = Arrays.copyOf(distinct, k);
+			this.ends = new int[k];
+			int pos = 0;
+			for (int j = 0; j < k; j++) {
+				for (int i = 0; i < m; i++)
+					if (list.get(i).code == codes[j])
+						relations[pos++] = list.get(i);
+				ends[j] = pos;
+			}
+		}
+
+		/**
+		 * @return the index of the group having a given relation code, or -1
+		 */
+		int find(int code) {
+			for (int j = 0; j < codes.length; j++)
+				if (codes[j] == code)
+					return j;
+			return -1;
+		}
+
+		int start(int group) {
+			return group == 0 ? 0 : ends[group - 1];
+		}
+
+	}
+
 	/**
 	 * 
 	 * @return the synset's unique id in string format
@@ -152,6 +227,14 @@ public class Synset implements Serializable{
 	}
 
 	/**
+	 * Returns the synset's relations list itself. Relations added to or
+	 * removed from the list, and type changes through Relation.setRelation(),
+	 * are seen by the synset's own relation lookups; after replacing or
+	 * reordering elements of the list, call setRelations(). The relations of a
+	 * synset that belongs to a RoWordNet object must not be edited in place,
+	 * as its incoming relations index would not follow: use
+	 * RoWordNet.addRelation() and RoWordNet.removeRelation(), or overwrite the
+	 * synset with an edited copy, so that the dictionary's indexes follow.
 	 * 
 	 * @return an ArrayList containing the all the relations in which the
 	 *         current synset can be involved with other synsets
@@ -169,6 +252,28 @@ public class Synset implements Serializable{
 	 */
 	public void setRelations(ArrayList<Relation> relations) {
 		this.relations = relations;
+		this.relationGroups = null;
+	}
+
+	/**
+	 * Returns the synset's relations grouped by type, grouping them if they
+	 * were changed since they were last grouped (see relationGroups). Adding
+	 * or removing relations through the list returned by getRelations() is
+	 * noticed as well, from the list's size; replacing or reordering its
+	 * elements in place is not, and must be followed by setRelations(). The
+	 * targets are read from the Relation objects themselves, so changing a
+	 * relation's target needs no regrouping.
+	 * 
+	 * @return the grouped relations
+	 */
+	RelationGroups getRelationGroups() {
+		RelationGroups groups = relationGroups;
+		ArrayList<Relation> list = relations;
+		if (groups == null || groups.source != list || (list != null && list.size() != groups.relations.length)) {
+			groups = list == null ? RelationGroups.EMPTY : new RelationGroups(this, list);
+			relationGroups = groups;
+		}
+		return groups;
 	}
 
 	/**
@@ -269,6 +374,57 @@ public class Synset implements Serializable{
 		this.informationContent = informationContent;
 	}
 
+	/**
+	 * Returns a deep copy of the synset: the lists, literals and relations are
+	 * copied as well, so the copy can be modified independently.
+	 * 
+	 * @return the copy
+	 */
+	public Synset copy() {
+		Synset s = new Synset();
+		s.id = getId();
+		s.pos = getPos();
+		s.non_lexicalized = isNon_lexicalized();
+		s.definition = getDefinition();
+		s.stamp = getStamp();
+		s.domain = getDomain();
+		s.sumo = getSumo();
+		s.sumotype = getSumotype();
+		s.sentiwn_p = getSentiwn_p();
+		s.sentiwn_n = getSentiwn_n();
+		s.sentiwn_o = getSentiwn_o();
+		s.nl = getNl();
+		s.informationContent = getInformationContent();
+		ArrayList<String> strings = getPwn20();
+		s.pwn20 = strings == null ? null : new ArrayList<String>(strings);
+		strings = getUsage();
+		s.usage = strings == null ? null : new ArrayList<String>(strings);
+		ArrayList<Literal> literals = getLiterals();
+		if (literals != null) {
+			s.literals = new ArrayList<Literal>(literals.size());
+			for (Literal l : literals)
+				s.literals.add(new Literal(l.literal, l.sense));
+		}
+		ArrayList<Relation> relations = getRelations();
+		if (relations != null) {
+			s.relations = new ArrayList<Relation>(relations.size());
+			for (Relation r : relations)
+				s.relations.add(new Relation(r.sourceSynset, r.targetSynset, r.relation, r.sourceLiteral,
+						r.targetLiteral));
+		}
+		return s;
+	}
+
+	/**
+	 * Returns the object a modifiable dictionary stores for this synset: the
+	 * synset itself, or an ordinary copy of a read-only view.
+	 * 
+	 * @return the synset to store
+	 */
+	Synset modifiable() {
+		return this;
+	}
+
 	static public Type stringToType(String pos) {
 		switch (pos) {
 		case "n":
@@ -302,37 +458,39 @@ public class Synset implements Serializable{
 	/*
 	 * (non-Javadoc)
 	 * 
+	 * The fields are read through the getters, so that read-only views
+	 * overriding them (CompactSynsetStore.CompactSynset) compare and hash like
+	 * the synsets they stand for.
+	 * 
 	 * @see java.lang.Object#hashCode()
 	 */
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((definition == null) ? 0 : definition
-				.hashCode());
-		result = prime * result + ((domain == null) ? 0 : domain.hashCode());
-		result = prime * result + ((id == null) ? 0 : id.hashCode());
-		result = prime * result + ((literals == null) ? 0 : literals.hashCode());
-		result = prime * result + ((nl == null) ? 0 : nl.hashCode());
-		result = prime * result + (non_lexicalized ? 1231 : 1237);
-		result = prime * result + ((pos == null) ? 0 : pos.hashCode());
-		result = prime * result + ((relations == null) ? 0 : relations
-				.hashCode());
-		result = prime * result + ((sentiwn_n == null) ? 0 : sentiwn_n
-				.hashCode());
-		result = prime * result + ((sentiwn_o == null) ? 0 : sentiwn_o
-				.hashCode());
-		result = prime * result + ((sentiwn_p == null) ? 0 : sentiwn_p
-				.hashCode());
-		result = prime * result + ((sumo == null) ? 0 : sumo.hashCode());
-		result = prime * result + ((sumotype == null) ? 0 : sumotype.hashCode());
-		result = prime * result + ((usage == null) ? 0 : usage.hashCode());
+		result = prime * result + Objects.hashCode(getDefinition());
+		result = prime * result + Objects.hashCode(getDomain());
+		result = prime * result + Objects.hashCode(getId());
+		result = prime * result + Objects.hashCode(getLiterals());
+		result = prime * result + Objects.hashCode(getNl());
+		result = prime * result + (isNon_lexicalized() ? 1231 : 1237);
+		result = prime * result + Objects.hashCode(getPos());
+		result = prime * result + Objects.hashCode(getRelations());
+		result = prime * result + Objects.hashCode(getSentiwn_n());
+		result = prime * result + Objects.hashCode(getSentiwn_o());
+		result = prime * result + Objects.hashCode(getSentiwn_p());
+		result = prime * result + Objects.hashCode(getSumo());
+		result = prime * result + Objects.hashCode(getSumotype());
+		result = prime * result + Objects.hashCode(getUsage());
 		return result;
 	}
 
 	/*
 	 * (non-Javadoc)
 	 * 
+	 * Any two Synset objects with the same content are equal, whatever their
+	 * class; the fields are read through the getters.
+	 * 
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
 	@Override
@@ -340,124 +498,50 @@ public class Synset implements Serializable{
 		if (this == obj) {
 			return true;
 		}
-		if (obj == null) {
-			return false;
-		}
-		if (getClass() != obj.getClass()) {
+		if (!(obj instanceof Synset)) {
 			return false;
 		}
 		Synset other = (Synset) obj;
-		if (definition == null) {
-			if (other.definition != null) {
-				return false;
-			}
-		} else if (!definition.equals(other.definition)) {
-			return false;
-		}
-		if (domain == null) {
-			if (other.domain != null) {
-				return false;
-			}
-		} else if (!domain.equals(other.domain)) {
-			return false;
-		}
-		if (id == null) {
-			if (other.id != null) {
-				return false;
-			}
-		} else if (!id.equals(other.id)) {
-			return false;
-		}
-		if (literals == null) {
-			if (other.literals != null) {
-				return false;
-			}
-		} else if (!literals.equals(other.literals)) {
-			return false;
-		}
-		if (nl == null) {
-			if (other.nl != null) {
-				return false;
-			}
-		} else if (!nl.equals(other.nl)) {
-			return false;
-		}
-		if (non_lexicalized != other.non_lexicalized) {
-			return false;
-		}
-		if (pos != other.pos) {
-			return false;
-		}
-		if (relations == null) {
-			if (other.relations != null) {
-				return false;
-			}
-		} else if (!relations.equals(other.relations)) {
-			return false;
-		}
-		if (sentiwn_n == null) {
-			if (other.sentiwn_n != null) {
-				return false;
-			}
-		} else if (!sentiwn_n.equals(other.sentiwn_n)) {
-			return false;
-		}
-		if (sentiwn_o == null) {
-			if (other.sentiwn_o != null) {
-				return false;
-			}
-		} else if (!sentiwn_o.equals(other.sentiwn_o)) {
-			return false;
-		}
-		if (sentiwn_p == null) {
-			if (other.sentiwn_p != null) {
-				return false;
-			}
-		} else if (!sentiwn_p.equals(other.sentiwn_p)) {
-			return false;
-		}
-		if (sumo == null) {
-			if (other.sumo != null) {
-				return false;
-			}
-		} else if (!sumo.equals(other.sumo)) {
-			return false;
-		}
-		if (sumotype == null) {
-			if (other.sumotype != null) {
-				return false;
-			}
-		} else if (!sumotype.equals(other.sumotype)) {
-			return false;
-		}
-		if (usage == null) {
-			if (other.usage != null) {
-				return false;
-			}
-		} else if (!usage.equals(other.usage)) {
-			return false;
-		}
-		return true;
+		return Objects.equals(getDefinition(), other.getDefinition())
+				&& Objects.equals(getDomain(), other.getDomain())
+				&& Objects.equals(getId(), other.getId())
+				&& Objects.equals(getLiterals(), other.getLiterals())
+				&& Objects.equals(getNl(), other.getNl())
+				&& isNon_lexicalized() == other.isNon_lexicalized()
+				&& getPos() == other.getPos()
+				&& Objects.equals(getRelations(), other.getRelations())
+				&& Objects.equals(getSentiwn_n(), other.getSentiwn_n())
+				&& Objects.equals(getSentiwn_o(), other.getSentiwn_o())
+				&& Objects.equals(getSentiwn_p(), other.getSentiwn_p())
+				&& Objects.equals(getSumo(), other.getSumo())
+				&& Objects.equals(getSumotype(), other.getSumotype())
+				&& Objects.equals(getUsage(), other.getUsage());
 	}
 
 	@Override
 	public String toString() {
-		String out = "Synset: id=" + id;
+		String out = "Synset: id=" + getId();
+		Type pos = getPos();
 		if (pos != null)
 			out += ", pos=" + pos;
-		if (nl != null)
-			out += ", nl=" + non_lexicalized;
+		if (getNl() != null)
+			out += ", nl=" + isNon_lexicalized();
+		String definition = getDefinition();
 		if (definition != null)
 			out += ", definition=" + definition;
+		String stamp = getStamp();
 		if (stamp != null)
 			out += ", stamp=" + stamp;
+		String domain = getDomain();
 		if (domain != null)
 			out += ", domain=" + domain;
-		if (this.literals != null)
-			for (Literal l : this.literals)
+		ArrayList<Literal> literals = getLiterals();
+		if (literals != null)
+			for (Literal l : literals)
 				out += "\n\t" + l.toString();
-		if (this.relations != null)
-			for (Relation r : this.relations)
+		ArrayList<Relation> relations = getRelations();
+		if (relations != null)
+			for (Relation r : relations)
 				out += "\n\t" + r.toString();
 		return out;
 	}
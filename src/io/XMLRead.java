@@ -16,6 +16,7 @@ import org.xml.sax.helpers.DefaultHandler;
 import data.Literal;
 import data.Relation;
 import data.Synset;
+import utils.StringPool;
 
 /**
  * Class used to read a RoWordNet XML file into a RoWordNet object
@@ -35,6 +36,7 @@ public class XMLRead extends DefaultHandler {
 	ArrayList<Relation> relations;
 	Relation relation;
 	ArrayList<String> usages, pwn20;
+	StringPool pool;
 
 	/**
 	 * Class constructor.
@@ -43,6 +45,20 @@ public class XMLRead extends DefaultHandler {
 	 * @throws IOException if IO.openFile() throws IOException
 	 */
 	public XMLRead(String filePath) throws IOException{
+		this(filePath, new StringPool());
+	}
+
+	/**
+	 * Class constructor. Ids, literals, senses, domains, SUMO terms and the
+	 * other repetitive values are deduplicated through the given pool, so
+	 * that equal values share a single String object.
+	 * 
+	 * @param filePath the path where the XML file is located on disk
+	 * @param pool the pool used to deduplicate the read values
+	 * @throws IOException if IO.openFile() throws IOException
+	 */
+	public XMLRead(String filePath, StringPool pool) throws IOException{
+		this.pool = pool;
 		BufferedReader f3 = IO.openFile(filePath);
 
 		this.is = new InputSource(f3);
@@ -66,18 +82,18 @@ public class XMLRead extends DefaultHandler {
 	public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
 		// System.out.println("E: "+qName);
 		if (qName.equalsIgnoreCase("SENSE")) {
-			literal.setLiteral(temp);// System.out.println(literal.getLiteral());
+			literal.setLiteral(pool.intern(temp));// System.out.println(literal.getLiteral());
 			temp = "";
 			return;
 		}
 
 		if (qName.equalsIgnoreCase("TYPE")) { // id obiect este gata de citire
 			if (inRelation) {
-				relation.setTargetSynset(temp);
+				relation.setTargetSynset(pool.intern(temp));
 				relation.setSourceSynset(tempSynset.getId());
 			}
 			if (inSumo) {
-				tempSynset.setSumo(temp);
+				tempSynset.setSumo(pool.intern(temp));
 			}
 			temp = "";
 			return;
@@ -116,6 +132,11 @@ public class XMLRead extends DefaultHandler {
 	public void endElement(String uri, String localName, String qName) throws SAXException {
 
 		if (qName.equalsIgnoreCase("SYNSET")) {
+			// drop the preallocated slack, empty lists share an empty array
+			literals.trimToSize();
+			relations.trimToSize();
+			usages.trimToSize();
+			pwn20.trimToSize();
 			tempSynset.setRelations(relations);
 			tempSynset.setUsage(usages);
 			tempSynset.setPwn20(pwn20);
@@ -123,11 +144,11 @@ public class XMLRead extends DefaultHandler {
 			return;
 		}
 		if (qName.equalsIgnoreCase("ID")) {
-			tempSynset.setId(temp);
+			tempSynset.setId(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("PWN20")) {
-			pwn20.add(temp);
+			pwn20.add(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("POS")) {
@@ -142,11 +163,11 @@ public class XMLRead extends DefaultHandler {
 			return;
 		}
 		if (qName.equalsIgnoreCase("STAMP")) {
-			tempSynset.setStamp(temp);
+			tempSynset.setStamp(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("DOMAIN")) {
-			tempSynset.setDomain(temp);
+			tempSynset.setDomain(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("LITERAL")) {
@@ -155,7 +176,7 @@ public class XMLRead extends DefaultHandler {
 			return;
 		}
 		if (qName.equalsIgnoreCase("SENSE")) {
-			literal.setSense(temp);
+			literal.setSense(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("SYNONYM")) {
@@ -168,7 +189,7 @@ public class XMLRead extends DefaultHandler {
 				return;
 			}
 			if (inSumo) {
-				tempSynset.setSumotype(temp);
+				tempSynset.setSumotype(pool.intern(temp));
 				return;
 			}
 		}
@@ -183,28 +204,28 @@ public class XMLRead extends DefaultHandler {
 			return;
 		}
 		if (qName.equalsIgnoreCase("P")) {
-			tempSynset.setSentiwn_p(temp);
+			tempSynset.setSentiwn_p(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("N")) {
-			tempSynset.setSentiwn_n(temp);
+			tempSynset.setSentiwn_n(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("O")) {
-			tempSynset.setSentiwn_o(temp);
+			tempSynset.setSentiwn_o(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("NL")) {
-			tempSynset.setNl(temp);
+			tempSynset.setNl(pool.intern(temp));
 			tempSynset.setNon_lexicalized(true);
 			return;
 		}
 		if (qName.equalsIgnoreCase("SRCL")) {
-			relation.setSourceLiteral(temp);
+			relation.setSourceLiteral(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("TRGL")) {
-			relation.setTargetLiteral(temp);
+			relation.setTargetLiteral(pool.intern(temp));
 			return;
 		}
 		if (qName.equalsIgnoreCase("USAGE")) {
@@ -221,7 +242,23 @@ public class XMLRead extends DefaultHandler {
 	 * @throws Exception 
 	 */
 	public static ArrayList<Synset> read(String filePath) throws Exception {
-		XMLRead r = new XMLRead(filePath);
+		StringPool pool = new StringPool();
+		ArrayList<Synset> synsets = read(filePath, pool);
+		IO.outln(pool);
+		return synsets;
+	}
+
+	/**
+	 * Method that extracts and saves the synsets from an XML file,
+	 * deduplicating the read values through the given pool.
+	 * 
+	 * @param filePath the XML file's location on disk
+	 * @param pool the pool used to deduplicate the read values
+	 * @return an ArrayList containing the extracted synsets
+	 * @throws Exception 
+	 */
+	public static ArrayList<Synset> read(String filePath, StringPool pool) throws Exception {
+		XMLRead r = new XMLRead(filePath, pool);
 
 		SAXParserFactory spf = SAXParserFactory.newInstance();
 		SAXParser saxParser = spf.newSAXParser();
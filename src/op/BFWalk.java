@@ -1,13 +1,17 @@
 package op;
 
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashSet;
+import java.util.NoSuchElementException;
 import java.util.Queue;
 import java.util.LinkedList;
 import java.util.ArrayList;
 
+import data.FrozenRoWordNet;
 import data.RoWordNet;
 import data.Literal;
-import data.Relation;
+import data.RelationRegistry;
 
 /**
  * This class is an essential tool for parsing a dictionary, represented as a
@@ -47,6 +51,16 @@ import data.Relation;
  * filteredRelations = null, then no relation is allowed, and thus the BFWalk
  * will start and stop immediately at the source synset.
  * </p>
+ * <p>
+ * A BFWalk can also run on a FrozenRoWordNet snapshot, in which case the BFS
+ * works on dense synset indices and relation codes; the String ids are only
+ * used when entering and leaving the walk (see nextSynsetIndex()).
+ * </p>
+ * <p>
+ * Calling setReverse(true) makes the walk follow the relations against their
+ * direction, which allows downward taxonomy walks (e.g. all the hyponyms of a
+ * synset, by following the hypernym relation in reverse).
+ * </p>
  * 
  * @author Stefan Dumitrescu
  * @author Radu Petrut
@@ -94,6 +108,13 @@ public class BFWalk {
 	 */
 	String filteredRelations[];
 
+	/**
+	 * Flag that indicates if the relations are followed against their
+	 * direction, i.e. from their target synset to their source synset (for
+	 * example, walking the hypernym relation in reverse visits the hyponyms).
+	 */
+	boolean reverse;
+
 	/**
 	 * Queue used by the BFS algorithm to deposit and extract nodes starting
 	 * from the root and filtering the relations correspondingly at each step.
@@ -106,6 +127,54 @@ public class BFWalk {
 	 */
 	HashSet<String> analyzed;
 
+	/**
+	 * The frozen dictionary the walk runs on, or null if the walk runs on the
+	 * RoWN object.
+	 */
+	FrozenRoWordNet frozen;
+
+	/**
+	 * Queue of dense synset indices, used instead of bfsQueue when the walk
+	 * runs on a frozen dictionary. The pending indices are the ones between
+	 * queueHead (inclusive) and queueTail (exclusive).
+	 */
+	int[] frozenQueue;
+	int queueHead, queueTail;
+
+	/**
+	 * Dense indices of the synsets added to the frozenQueue.
+	 */
+	BitSet frozenAnalyzed;
+
+	/**
+	 * Relation codes already taken on the edges of the synset being expanded
+	 * by nextSynsetIndex(); cleared for each synset.
+	 */
+	BitSet takenCodes;
+
+	/**
+	 * The filteredRelations array compiled to relation codes, once per walk:
+	 * codes of the RelationRegistry when walking the RoWN object, codes of the
+	 * frozen dictionary otherwise. Unknown relations are mapped to -1 and the
+	 * "*" wildcard to ANY_RELATION.
+	 */
+	int[] filteredCodes;
+
+	/**
+	 * Bit mask of the codes in filteredCodes.
+	 */
+	BitSet filteredMask;
+
+	/**
+	 * True if filteredRelations contains the "*" wildcard.
+	 */
+	boolean filtersAll;
+
+	/**
+	 * Code used in filteredCodes for the "*" wildcard.
+	 */
+	static final int ANY_RELATION = -2;
+
 	/**
 	 * Class constructor.
 	 * <p>
@@ -123,6 +192,7 @@ public class BFWalk {
 
 		bfsQueue = new LinkedList<String>();
 		analyzed = new HashSet<String>();
+		compileFilter();
 	}
 
 	/**
@@ -161,6 +231,7 @@ public class BFWalk {
 		bfsQueue.add(rootSynsetID);
 		analyzed = new HashSet<String>();
 		analyzed.add(rootSynsetID);
+		compileFilter();
 	}
 
 	/**
@@ -199,6 +270,7 @@ public class BFWalk {
 		bfsQueue.add(rootSynsetID);
 		analyzed = new HashSet<String>();
 		analyzed.add(rootSynsetID);
+		compileFilter();
 	}
 
 	/**
@@ -239,6 +311,7 @@ public class BFWalk {
 		bfsQueue.add(rootSynID);
 		analyzed = new HashSet<String>();
 		analyzed.add(rootSynID);
+		compileFilter();
 	}
 
 	/**
@@ -279,6 +352,120 @@ public class BFWalk {
 		bfsQueue.add(rootSynID);
 		analyzed = new HashSet<String>();
 		analyzed.add(rootSynID);
+		compileFilter();
+	}
+
+	/**
+	 * Class constructor.
+	 * <p>
+	 * It builds a BFWalk object that runs on a frozen dictionary, with the
+	 * root being the synset with the given dense index.
+	 * </p>
+	 * 
+	 * @param frozen
+	 *            the frozen dictionary the walk runs on
+	 * @param rootIndex
+	 *            the dense index of the root synset
+	 * @param allowAllRelations
+	 *            the value to which the allowAllRelations class variable is set
+	 * @param filteredRelations
+	 *            the value to which the filteredRelations class variable is set
+	 */
+	public BFWalk(FrozenRoWordNet frozen, int rootIndex, boolean allowAllRelations, String filteredRelations[]) {
+		this.RoWN = null;
+		this.frozen = frozen;
+		this.rootSynsetID = frozen.getId(rootIndex);
+		this.rootLiteral = null;
+		this.allowAllRelations = allowAllRelations;
+		this.filteredRelations = filteredRelations;
+
+		frozenQueue = new int[16];
+		frozenQueue[queueTail++] = rootIndex;
+		frozenAnalyzed = new BitSet(frozen.size());
+		frozenAnalyzed.set(rootIndex);
+		takenCodes = new BitSet();
+		compileFilter();
+	}
+
+	/**
+	 * Compiles the filteredRelations array to the filteredCodes array and to
+	 * the filteredMask bit mask, so that no String is compared while walking.
+	 */
+	private void compileFilter() {
+		filteredMask = new BitSet();
+		filtersAll = false;
+		filteredCodes = null;
+		if (filteredRelations == null)
+			return;
+
+		filteredCodes = new int[filteredRelations.length];
+		for (int i = 0; i < filteredRelations.length; i++) {
+			String rel = filteredRelations[i];
+			if ("*".equals(rel)) {
+				filteredCodes[i] = ANY_RELATION;
+				filtersAll = true;
+				continue;
+			}
+			int code = frozen != null ? frozen.getRelationCode(rel) : RelationRegistry
+					.getCode(rel);
+			filteredCodes[i] = code;
+			if (code >= 0)
+				filteredMask.set(code);
+		}
+	}
+
+	/**
+	 * Class constructor.
+	 * <p>
+	 * It builds a BFWalk object that runs on a frozen dictionary, with the
+	 * root being a synset.
+	 * </p>
+	 * 
+	 * @param frozen
+	 *            the frozen dictionary the walk runs on
+	 * @param rootSynsetID
+	 *            the id of the root synset
+	 * @param allowAllRelations
+	 *            the value to which the allowAllRelations class variable is set
+	 * @param filteredRelations
+	 *            the value to which the filteredRelations class variable is set
+	 * @throws IllegalArgumentException
+	 *             if the frozen dictionary has no synset with the given id
+	 */
+	public BFWalk(FrozenRoWordNet frozen, String rootSynsetID, boolean allowAllRelations, String filteredRelations[]) {
+		this(frozen, indexOf(frozen, rootSynsetID), allowAllRelations, filteredRelations);
+	}
+
+	/**
+	 * Class constructor.
+	 * <p>
+	 * It builds a BFWalk object that runs on a frozen dictionary, with the
+	 * root being a synset. The allowAllRelations flag is set to true and the
+	 * filteredRelations array to null.
+	 * </p>
+	 * 
+	 * @param frozen
+	 *            the frozen dictionary the walk runs on
+	 * @param rootSynsetID
+	 *            the id of the root synset
+	 * @throws IllegalArgumentException
+	 *             if the frozen dictionary has no synset with the given id
+	 */
+	public BFWalk(FrozenRoWordNet frozen, String rootSynsetID) {
+		this(frozen, indexOf(frozen, rootSynsetID), true, null);
+	}
+
+	/**
+	 * @return the dense index of the root synset of a walk on a frozen
+	 *         dictionary
+	 * @throws IllegalArgumentException
+	 *             if the frozen dictionary has no synset with the given id
+	 */
+	private static int indexOf(FrozenRoWordNet frozen, String rootSynsetID) {
+		int index = frozen.getIndex(rootSynsetID);
+		if (index < 0)
+			throw new IllegalArgumentException("Unknown synset id: " + rootSynsetID);
+		return index;
 	}
 
 	/**
@@ -313,37 +500,148 @@ public class BFWalk {
 	 *             restrictions
 	 */
 	public String nextSynset() throws Exception {
+		if (frozen != null)
+			return frozen.getId(nextSynsetIndex());
+
 		String nextSynsetID = bfsQueue.remove();
 
 		if (!allowAllRelations)
-			if (filteredRelations != null && filteredRelations.length != 0)
-				for (String s : filteredRelations) {
-					ArrayList<String> ends = RoWN
-							.getRelatedSynsetIds(nextSynsetID, s);
-					for (String end : ends)
-						if (!analyzed.contains(end)) {
-							bfsQueue.add(end);
-							analyzed.add(end);
-						}
-				}
+			if (filteredCodes != null && filteredCodes.length != 0)
+				for (int code : filteredCodes)
+					enqueue(relatedSynsetIds(nextSynsetID, code));
 			else
 				throw new Exception("No relation to analyse after applying restrictions! ");
-		else if (isFiltered("*"))
+		else if (filtersAll)
 			throw new Exception("No relation to analyse after applying restrictions! ");
+		else if (reverse)
+			enqueue(RoWN.getIncomingSynsetIds(nextSynsetID, filteredMask));
 		else
-			for (Relation r : RoWN.getSynsetById(nextSynsetID).getRelations())
-				if (!isFiltered(r.getRelation())) {
-					ArrayList<String> ends = RoWN
-							.getRelatedSynsetIds(nextSynsetID, r.getRelation());
-					for (String end : ends)
-						if (!analyzed.contains(end)) {
-							bfsQueue.add(end);
-							analyzed.add(end);
-						}
-				}
+			enqueue(RoWN.getRelatedSynsetIds(nextSynsetID, filteredMask));
 		return nextSynsetID;
 	}
 
+	/**
+	 * Frozen counterpart of nextSynset(): returns the dense index of the next
+	 * synset in the queue, after adding the indices of the synsets related to
+	 * it. The relations are filtered in the same way and the synsets are
+	 * visited in the same order as when walking the RoWordNet object.
+	 * 
+	 * @return the dense index of the next synset in the queue
+	 * @throws Exception
+	 *             if no relation is left to analyze after applying the
+	 *             restrictions
+	 * @throws IllegalStateException
+	 *             if the walk does not run on a frozen dictionary
+	 */
+	public int nextSynsetIndex() throws Exception {
+		if (frozen == null)
+			throw new IllegalStateException("The walk does not run on a frozen dictionary!");
+		if (queueHead == queueTail)
+			throw new NoSuchElementException();
+		int next = frozenQueue[queueHead++];
+		int start = reverse ? frozen.getIncomingStart(next) : frozen.getRelationsStart(next);
+		int end = reverse ? frozen.getIncomingEnd(next) : frozen.getRelationsEnd(next);
+
+		if (!allowAllRelations)
+			if (filteredCodes != null && filteredCodes.length != 0)
+				for (int i = 0; i < filteredCodes.length; i++) {
+					boolean any = filteredCodes[i] == ANY_RELATION;
+					for (int e = start; e < end; e++)
+						if (any || edgeType(e) == filteredCodes[i])
+							enqueue(edgeEnd(e));
+				}
+			else
+				throw new Exception("No relation to analyse after applying restrictions! ");
+		else if (filtersAll)
+			throw new Exception("No relation to analyse after applying restrictions! ");
+		else {
+			takenCodes.clear();
+			for (int e = start; e < end; e++) {
+				int code = edgeType(e);
+				if (RelationRegistry.inMask(code, filteredMask) || takenCodes.get(code))
+					continue;
+				// all the edges of a type are added at its first occurrence
+				takenCodes.set(code);
+				for (int f = e; f < end; f++)
+					if (edgeType(f) == code)
+						enqueue(edgeEnd(f));
+			}
+		}
+		return next;
+	}
+
+	/**
+	 * @return the relation code of an edge of the frozen dictionary, in the
+	 *         direction the walk follows
+	 */
+	private int edgeType(int edge) {
+		return reverse ? frozen.getIncomingType(edge) : frozen.getRelationType(edge);
+	}
+
+	/**
+	 * @return the dense index of the synset an edge of the frozen dictionary
+	 *         leads to, in the direction the walk follows
+	 */
+	private int edgeEnd(int edge) {
+		return reverse ? frozen.getIncomingSource(edge) : frozen.getRelationTarget(edge);
+	}
+
+	/**
+	 * @return the ids of the synsets reached from a synset through the
+	 *         relation type having a given code, in the direction the walk
+	 *         follows
+	 */
+	private ArrayList<String> relatedSynsetIds(String synsetID, int code) {
+		if (code == RelationRegistry.UNKNOWN)
+			return new ArrayList<String>();
+		if (code == ANY_RELATION)
+			return reverse ? RoWN.getIncomingSynsetIds(synsetID, "*") : RoWN
+					.getRelatedSynsetIds(synsetID, "*");
+		return reverse ? RoWN.getIncomingSynsetIds(synsetID, code) : RoWN
+				.getRelatedSynsetIds(synsetID, code);
+	}
+
+	/**
+	 * Adds synset ids to the bfsQueue, skipping the ones already analyzed.
+	 */
+	private void enqueue(ArrayList<String> ends) {
+		for (String end : ends)
+			if (analyzed.add(end))
+				bfsQueue.add(end);
+	}
+
+	/**
+	 * Adds a dense index to the frozenQueue, unless it was already analyzed.
+	 */
+	private void enqueue(int index) {
+		if (frozenAnalyzed.get(index))
+			return;
+		frozenAnalyzed.set(index);
+		if (queueTail == frozenQueue.length)
+			frozenQueue = Arrays.copyOf(frozenQueue, queueTail * 2);
+		frozenQueue[queueTail++] = index;
+	}
+
+	/**
+	 * @return true if the walk follows the relations against their direction
+	 */
+	public boolean isReverse() {
+		return reverse;
+	}
+
+	/**
+	 * Sets the direction in which the relations are followed. Must be called
+	 * before the first nextSynset() call.
+	 * 
+	 * @param reverse
+	 *            true to follow the relations from their target synset to their
+	 *            source synset (e.g. hypernym edges lead to the hyponyms), false
+	 *            to follow them in their own direction (the default)
+	 */
+	public void setReverse(boolean reverse) {
+		this.reverse = reverse;
+	}
+
 	/**
 	 * Boolean method that analyzes whether there are any more synsets in the
 	 * bfsQueue.
@@ -351,6 +649,8 @@ public class BFWalk {
 	 * @return false if the bfsQueue is empty, true otherwise
 	 */
 	public boolean hasMoreSynsets() {
+		if (frozen != null)
+			return queueHead != queueTail;
 		if (!bfsQueue.isEmpty())
 			return true;
 		return false;
@@ -1,10 +1,12 @@
 package op;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 
+import data.FrozenRoWordNet;
 import data.Literal;
 import data.RoWordNet;
 import data.Synset;
@@ -236,6 +238,84 @@ public class Operation {
 		return retS;
 	}
 
+	/**
+	 * Method that returns the path between two synsets of a frozen dictionary,
+	 * working on dense synset indices.
+	 * <p>
+	 * The walk visits the synsets in the same order as
+	 * getPath(RoWordNet, String, String, boolean, String[]) does on the
+	 * dictionary the frozen object was built from.
+	 * </p>
+	 * 
+	 * @param frozen
+	 *            the frozen dictionary to which the synsets belong
+	 * @param sourceIndex
+	 *            the dense index of the synset from where the search begins
+	 * @param targetIndex
+	 *            the searched synset's dense index
+	 * @param allowAllRelations
+	 *            flag that indicates if all the possible relations between
+	 *            synsets are to be considered when parsing the tree
+	 * @param filteredRelations
+	 *            array of relations, interpreted as in
+	 *            getPath(RoWordNet, String, String, boolean, String[])
+	 * @return the path from target to source, as an array of dense indices
+	 * @throws Exception
+	 *             if no relation is left to analyze after applying the
+	 *             restrictions
+	 * @see BFWalk
+	 */
+	public static int[] getPath(FrozenRoWordNet frozen, int sourceIndex, int targetIndex, boolean allowAllRelations, String[] filteredRelations) throws Exception {
+		int[] path = new int[16];
+		int length = 0;
+
+		BFWalk bfw = new BFWalk(frozen, sourceIndex, allowAllRelations, filteredRelations);
+		while (bfw.hasMoreSynsets()) {
+			int s = bfw.nextSynsetIndex();
+			if (length == path.length)
+				path = Arrays.copyOf(path, length * 2);
+			path[length++] = s;
+			if (s == targetIndex)
+				break;
+		}
+		return Arrays.copyOf(path, length);
+	}
+
+	/**
+	 * Method that returns the path between two synsets of a frozen dictionary.
+	 * The String ids are translated to dense indices and back, the search
+	 * itself being done by getPath(FrozenRoWordNet, int, int, boolean,
+	 * String[]).
+	 * 
+	 * @param frozen
+	 *            the frozen dictionary to which the synsets belong
+	 * @param sourceSynsetID
+	 *            the ID of the synset from where the search begins
+	 * @param targetSynsetID
+	 *            the searched synset's ID
+	 * @param allowAllRelations
+	 *            flag that indicates if all the possible relations between
+	 *            synsets are to be considered when parsing the tree
+	 * @param filteredRelations
+	 *            array of relations, interpreted as in
+	 *            getPath(RoWordNet, String, String, boolean, String[])
+	 * @return the path from target to source, as an array of String objects
+	 *         (synset IDs)
+	 * @throws Exception
+	 *             if no relation is left to analyze after applying the
+	 *             restrictions
+	 * @see BFWalk
+	 */
+	public static String[] getPath(FrozenRoWordNet frozen, String sourceSynsetID, String targetSynsetID, boolean allowAllRelations, String[] filteredRelations) throws Exception {
+		int[] path = getPath(frozen, frozen.getIndex(sourceSynsetID), frozen
+				.getIndex(targetSynsetID), allowAllRelations, filteredRelations);
+
+		String[] retS = new String[path.length];
+		for (int i = 0; i < path.length; i++)
+			retS[i] = frozen.getId(path[i]);
+		return retS;
+	}
+
 	/**
 	 * Method that returns the path between two literals using the search
 	 * mechanism made available by the BFWalk class.
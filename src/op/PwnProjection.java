@@ -0,0 +1,189 @@
+package op;
+
+import io.IO;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import data.RoWordNet;
+import utils.WorkerPool;
+
+/**
+ * This class consists of static methods that map Princeton WordNet 2.0 ids to
+ * RoWordNet synsets in bulk, e.g. to project annotations made on English text
+ * onto Romanian.
+ * <p>
+ * The lookups go through the PWN 2.0 index of the RoWordNet object
+ * (RoWordNet.getIdsFromPwn20()) and are split across the shared WorkerPool. They
+ * only read the dictionary, which must not be modified meanwhile. Files are
+ * processed in blocks of lines, so their size is not limited by the memory,
+ * and the output keeps the order of the input.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class PwnProjection {
+
+	/**
+	 * Number of ids below which a join is not split further.
+	 */
+	static final int			PARALLEL_THRESHOLD	= 4096;
+
+	/**
+	 * Number of lines of a file joined at once.
+	 */
+	static final int			BLOCK_LINES			= 1 << 16;
+
+	private static final String[]	NONE				= new String[0];
+
+	/**
+	 * Method that maps a sequence of PWN 2.0 ids to RoWordNet synset ids.
+	 *
+	 * @param rown
+	 *            the dictionary
+	 * @param pwnIds
+	 *            the PWN 2.0 ids
+	 * @return an array having, for each PWN id, the ids of the synsets mapped
+	 *         to it (an empty array if there are none)
+	 */
+	public static String[][] join(RoWordNet rown, String[] pwnIds) {
+		String[][] ret = new String[pwnIds.length][];
+		join(rown, pwnIds, ret, pwnIds.length);
+		return ret;
+	}
+
+	/**
+	 * Method that maps a sequence of PWN 2.0 ids to RoWordNet synset ids.
+	 *
+	 * @see join(RoWordNet, String[])
+	 */
+	public static String[][] join(RoWordNet rown, List<String> pwnIds) {
+		return join(rown, pwnIds.toArray(new String[pwnIds.size()]));
+	}
+
+	private static void join(RoWordNet rown, String[] keys, String[][] ret, int count) {
+		JoinTask task = new JoinTask(rown, keys, ret, 0, count);
+		if (count < PARALLEL_THRESHOLD)
+			task.compute();
+		else
+			WorkerPool.get().invoke(task);
+	}
+
+	private static final class JoinTask extends RecursiveAction {
+		private static final long	serialVersionUID	= -3486275106349270163L;
+
+		final RoWordNet				rown;
+		final String[]				keys;
+		final String[][]			ret;
+		final int					from, to;
+
+		JoinTask(RoWordNet rown, String[] keys, String[][] ret, int from, int to) {
+			this.rown = rown;
+			this.keys = keys;
+			this.ret = ret;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_THRESHOLD) {
+				for (int i = from; i < to; i++) {
+					ArrayList<String> ids = keys[i] == null ? null : rown.getIdsFromPwn20(keys[i]);
+					ret[i] = ids == null || ids.isEmpty() ? NONE : ids.toArray(new String[ids.size()]);
+				}
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new JoinTask(rown, keys, ret, from, mid), new JoinTask(rown, keys, ret, mid, to));
+		}
+	}
+
+	/**
+	 * Method that projects annotations keyed by PWN 2.0 ids onto RoWordNet
+	 * synsets.
+	 * <p>
+	 * Every input line starts with a PWN 2.0 id, optionally followed by a tab
+	 * and the annotation. For each synset mapped to the id, the line is
+	 * written with the id replaced by the synset's id. Lines whose id is not
+	 * mapped, and empty lines, are skipped.
+	 * </p>
+	 *
+	 * @param rown
+	 *            the dictionary
+	 * @param in
+	 *            the annotations
+	 * @param out
+	 *            receives the projected annotations
+	 * @return the number of input lines that were projected
+	 * @throws IOException
+	 *             if reading or writing fails
+	 */
+	public static long project(RoWordNet rown, BufferedReader in, Writer out) throws IOException {
+		long projected = 0;
+		String[] lines = new String[BLOCK_LINES];
+		String[] keys = new String[BLOCK_LINES];
+		String[][] ids = new String[BLOCK_LINES][];
+		while (true) {
+			int count = 0;
+			String line;
+			while (count < BLOCK_LINES && (line = in.readLine()) != null) {
+				if (line.isEmpty())
+					continue;
+				int tab = line.indexOf('\t');
+				lines[count] = line;
+				keys[count++] = tab < 0 ? line.trim() : line.substring(0, tab).trim();
+			}
+			if (count == 0)
+				break;
+
+			join(rown, keys, ids, count);
+			for (int i = 0; i < count; i++) {
+				if (ids[i].length == 0)
+					continue;
+				projected++;
+				int tab = lines[i].indexOf('\t');
+				String annotation = tab < 0 ? "" : lines[i].substring(tab);
+				for (String id : ids[i]) {
+					out.write(id);
+					out.write(annotation);
+					out.write('\n');
+				}
+			}
+			if (count < BLOCK_LINES)
+				break;
+		}
+		out.flush();
+		return projected;
+	}
+
+	/**
+	 * Method that projects a file of annotations keyed by PWN 2.0 ids onto
+	 * RoWordNet synsets, both files being in UTF-8.
+	 *
+	 * @param rown
+	 *            the dictionary
+	 * @param inputFile
+	 *            the annotations
+	 * @param outputFile
+	 *            the file receiving the projected annotations
+	 * @return the number of input lines that were projected
+	 * @throws IOException
+	 *             if reading or writing fails
+	 * @see project(RoWordNet, BufferedReader, Writer)
+	 */
+	public static long projectFile(RoWordNet rown, String inputFile, String outputFile) throws IOException {
+		try (BufferedReader in = IO.openFile(inputFile);
+				Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outputFile), "UTF-8"))) {
+			return project(rown, in, out);
+		}
+	}
+}
@@ -0,0 +1,262 @@
+package op;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+import utils.StopWord;
+import utils.Tokenizer;
+import data.FrozenRoWordNet;
+import data.Literal;
+
+/**
+ * Class that scores the sentiment polarity of tokenized text using the
+ * SentiWordNet scores of a FrozenRoWordNet.
+ * <p>
+ * The polarity of a synset is its positive score minus its negative score.
+ * Since the text is not disambiguated, the polarity of a word is the mean
+ * polarity of all the synsets (candidate senses) containing it as a literal,
+ * and the polarity of a sentence is the mean polarity of its known words.
+ * </p>
+ * <p>
+ * Word polarities are computed once, when the scorer is created, so scoring a
+ * sentence costs one hash lookup per token and allocates nothing: a token not
+ * found as written is looked up again case-insensitively, folding its
+ * characters to lower case one by one (the same for every locale) as they are
+ * hashed and compared. Stop-words are optionally left out of the tables, so
+ * they are skipped at no extra cost.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class SentimentScorer {
+
+	/**
+	 * A HashMap containing (key, value) entries, where key is a literal as
+	 * written and value is its polarity.
+	 */
+	HashMap<String, Float>	polarities;
+
+	/**
+	 * Open-addressing table (linear probing) of the literals folded to lower
+	 * case: foldedKeys[i] is a folded literal, or null for a free slot, and
+	 * foldedValues[i] its polarity. The length is a power of two, at least
+	 * twice the number of keys.
+	 */
+	String[]				foldedKeys;
+	float[]					foldedValues;
+
+	/**
+	 * Number of distinct words scored, as written or folded.
+	 */
+	int						size;
+
+	/**
+	 * Class constructor. Stop-words are scored like any other word.
+	 *
+	 * @param frozen
+	 *            the dictionary providing the sentiment scores
+	 */
+	public SentimentScorer(FrozenRoWordNet frozen) {
+		try {
+			build(frozen, false);
+		} catch (IOException e) {
+			// the stop-word list is not read
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param frozen
+	 *            the dictionary providing the sentiment scores
+	 * @param removeStopWords
+	 *            if true, stop-words are ignored when scoring
+	 * @throws IOException
+	 *             if removeStopWords is true and the stop-word list cannot be
+	 *             read
+	 */
+	public SentimentScorer(FrozenRoWordNet frozen, boolean removeStopWords) throws IOException {
+		build(frozen, removeStopWords);
+	}
+
+	private void build(FrozenRoWordNet frozen, boolean removeStopWords) throws IOException {
+		// sum and count of the candidate senses' polarities
+		HashMap<String, float[]> exact = new HashMap<String, float[]>();
+		HashMap<String, float[]> folded = new HashMap<String, float[]>();
+		for (int i = 0; i < frozen.size(); i++) {
+			float p = frozen.getSentimentPositive(i), n = frozen.getSentimentNegative(i);
+			if (Float.isNaN(p) || Float.isNaN(n))
+				continue;
+			ArrayList<Literal> literals = frozen.getSynset(i).getLiterals();
+			if (literals == null)
+				continue;
+			for (int j = 0; j < literals.size(); j++) {
+				String word = literals.get(j).getLiteral();
+				if (word == null || (removeStopWords && StopWord.isStopWord(word)))
+					continue;
+				// a synset is a single candidate sense, whatever its literals
+				boolean seen = false, seenFolded = false;
+				for (int k = 0; k < j; k++) {
+					String other = literals.get(k).getLiteral();
+					if (other != null) {
+						seen |= other.equals(word);
+						seenFolded |= equalsFolded(other, word);
+					}
+				}
+				if (!seen)
+					add(exact, word, p - n);
+				if (!seenFolded)
+					add(folded, fold(word), p - n);
+			}
+		}
+
+		polarities = new HashMap<String, Float>(exact.size() * 4 / 3 + 1);
+		for (Map.Entry<String, float[]> e : exact.entrySet())
+			polarities.put(e.getKey(), e.getValue()[0] / e.getValue()[1]);
+
+		int capacity = Integer.highestOneBit(Math.max(2 * folded.size(), 1)) << 1, mask = capacity - 1;
+		foldedKeys = new String[capacity];
+		foldedValues = new float[capacity];
+		size = polarities.size();
+		for (Map.Entry<String, float[]> e : folded.entrySet()) {
+			// a literal written in lower case takes precedence over the folded
+			// forms
+			Float polarity = polarities.get(e.getKey());
+			if (polarity == null) {
+				polarity = e.getValue()[0] / e.getValue()[1];
+				size++;
+			}
+			int i = spread(e.getKey().hashCode()) & mask;
+			while (foldedKeys[i] != null)
+				i = (i + 1) & mask;
+			foldedKeys[i] = e.getKey();
+			foldedValues[i] = polarity;
+		}
+	}
+
+	/**
+	 * Folds a string to lower case character by character, independently of
+	 * the default locale.
+	 */
+	static String fold(String s) {
+		char[] chars = new char[s.length()];
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = Character.toLowerCase(s.charAt(i));
+		return new String(chars);
+	}
+
+	/**
+	 * Checks whether two strings are equal once folded by fold(), without
+	 * folding them.
+	 */
+	static boolean equalsFolded(String a, String b) {
+		if (a.length() != b.length())
+			return false;
+		for (int i = 0; i < a.length(); i++)
+			if (Character.toLowerCase(a.charAt(i)) != Character.toLowerCase(b.charAt(i)))
+				return false;
+		return true;
+	}
+
+	/**
+	 * Spreads the high bits of a hash code over the low ones, which select the
+	 * slot.
+	 */
+	private static int spread(int h) {
+		return h ^ (h >>> 16);
+	}
+
+	private static void add(HashMap<String, float[]> sums, String word, float polarity) {
+		float[] sum = sums.get(word);
+		if (sum == null)
+			sums.put(word, sum = new float[2]);
+		sum[0] += polarity;
+		sum[1]++;
+	}
+
+	/**
+	 * Returns the polarity of a word: the mean polarity of its candidate
+	 * senses.
+	 *
+	 * @param word
+	 *            the word
+	 * @return the word's polarity, in [-1, 1], or NaN if the word is unknown
+	 *         (or a stop-word)
+	 */
+	public float getPolarity(String word) {
+		Float polarity = polarities.get(word);
+		if (polarity != null)
+			return polarity;
+		// the hash code of fold(word), computed without building it
+		int h = 0;
+		for (int i = 0; i < word.length(); i++)
+			h = 31 * h + Character.toLowerCase(word.charAt(i));
+		int mask = foldedKeys.length - 1;
+		for (int i = spread(h) & mask; foldedKeys[i] != null; i = (i + 1) & mask)
+			if (equalsFolded(foldedKeys[i], word))
+				return foldedValues[i];
+		return Float.NaN;
+	}
+
+	/**
+	 * Returns the polarity of a tokenized sentence: the mean polarity of its
+	 * known words.
+	 *
+	 * @param tokens
+	 *            the sentence's tokens
+	 * @return the sentence's polarity, in [-1, 1], or 0 if no word is known
+	 */
+	public float polarity(String[] tokens) {
+		float sum = 0;
+		int count = 0;
+		for (String token : tokens) {
+			float polarity = getPolarity(token);
+			if (!Float.isNaN(polarity)) {
+				sum += polarity;
+				count++;
+			}
+		}
+		return count == 0 ? 0 : sum / count;
+	}
+
+	/**
+	 * Returns the polarity of a sentence, tokenized with
+	 * Tokenizer.tokenizeSentence().
+	 *
+	 * @param sentence
+	 *            the sentence
+	 * @return the sentence's polarity, in [-1, 1], or 0 if no word is known
+	 */
+	public float polarity(String sentence) {
+		return polarity(Tokenizer.tokenizeSentence(sentence));
+	}
+
+	/**
+	 * Method that scores a batch of tokenized sentences.
+	 *
+	 * @param sentences
+	 *            the sentences' tokens
+	 * @param scores
+	 *            array receiving the polarity of each sentence; it must have
+	 *            at least sentences.length elements
+	 * @return the scores array
+	 */
+	public float[] polarity(String[][] sentences, float[] scores) {
+		if (scores.length < sentences.length)
+			throw new IllegalArgumentException("The scores array is shorter than the batch.");
+		for (int i = 0; i < sentences.length; i++)
+			scores[i] = polarity(sentences[i]);
+		return scores;
+	}
+
+	/**
+	 * @return the number of scored words
+	 */
+	public int size() {
+		return size;
+	}
+}
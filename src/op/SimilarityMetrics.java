@@ -1,5 +1,8 @@
 package op;
 
+import java.util.BitSet;
+
+import data.FrozenRoWordNet;
 import data.RoWordNet;
 
 /**
@@ -26,6 +29,10 @@ import data.RoWordNet;
  * Once the two important resources stated above were computed, implementing
  * the measurement algorithms was quite simple.
  * </p>
+ * <p>
+ * Every measure also has an overload working on a FrozenRoWordNet, which gives
+ * the same results as the RoWordNet one but walks the int-indexed snapshot.
+ * </p>
  * 
  * @author Stefan Dumitrescu
  * @author Radu Petrut
@@ -170,4 +177,103 @@ public class SimilarityMetrics {
 					return s1;
 		return null;
 	}
+
+	/**
+	 * Simple distance measure, computed on a frozen dictionary.
+	 * 
+	 * @see #distance(RoWordNet, String, String, boolean, String[])
+	 */
+	public static double distance(FrozenRoWordNet frozen, String sourceSynsetID, String targetSynsetID, boolean allowAllRelations, String[] filteredRelations) throws Exception{
+		return Operation.getPath(frozen, frozen.getIndex(sourceSynsetID), frozen.getIndex(targetSynsetID), allowAllRelations, filteredRelations).length-1;
+	}
+
+	/**
+	 * Simple hypernymy distance measure, computed on a frozen dictionary.
+	 * 
+	 * @see #distance(RoWordNet, String, String)
+	 */
+	public static double distance(FrozenRoWordNet frozen, String sourceSynsetID, String targetSynsetID) throws Exception{
+		String[] filteredRelations = {"hypernym", "instance_hypernym"};
+		return distance(frozen, sourceSynsetID, targetSynsetID, false, filteredRelations);
+	}
+
+	/**
+	 * Resnik's semantic similarity measure, computed on a frozen dictionary.
+	 * 
+	 * @see #Resnik(RoWordNet, String, String, boolean)
+	 */
+	public static double Resnik(FrozenRoWordNet frozen, String synsetId1, String synsetId2, boolean allowAllRelations) throws Exception {
+		int lcs = lowestCommonSubsumer(frozen, frozen.getIndex(synsetId1), frozen.getIndex(synsetId2), allowAllRelations);
+		return frozen.getInformationContent(lcs);
+	}
+
+	/**
+	 * Lin's semantic similarity measure, computed on a frozen dictionary.
+	 * 
+	 * @see #Lin(RoWordNet, String, String, boolean)
+	 */
+	public static double Lin(FrozenRoWordNet frozen, String synsetId1, String synsetId2, boolean allowAllRelations) throws Exception {
+		return 2*Resnik(frozen, synsetId1, synsetId2, allowAllRelations)/(frozen.getInformationContent(frozen.getIndex(synsetId1))+frozen.getInformationContent(frozen.getIndex(synsetId2)));
+	}
+
+	/**
+	 * Jiang and Conrath's semantic similarity measure, computed on a frozen
+	 * dictionary.
+	 * 
+	 * @see #JiangConrath(RoWordNet, String, String, boolean)
+	 */
+	public static double JiangConrath(FrozenRoWordNet frozen, String synsetId1, String synsetId2, boolean allowAllRelations) throws Exception{
+		return 1/JiangConrath_distance(frozen, synsetId1, synsetId2, allowAllRelations);
+	}
+
+	/**
+	 * Jiang and Conrath's semantic distance measure, computed on a frozen
+	 * dictionary.
+	 * 
+	 * @see #JiangConrath_distance(RoWordNet, String, String, boolean)
+	 */
+	public static double JiangConrath_distance(FrozenRoWordNet frozen, String synsetId1, String synsetId2, boolean allowAllRelations) throws Exception {
+		return frozen.getInformationContent(frozen.getIndex(synsetId1)) + frozen.getInformationContent(frozen.getIndex(synsetId2)) - 2*Resnik(frozen, synsetId1, synsetId2, allowAllRelations);
+	}
+
+	/**
+	 * Lowest common subsumer of two synsets of a frozen dictionary.
+	 * 
+	 * @return the lowest common subsumer's ID, or null if there is none
+	 * @see #lowestCommonSubsumer(RoWordNet, String, String, boolean)
+	 */
+	public static String lowestCommonSubsumer(FrozenRoWordNet frozen, String synsetId1,
+			String synsetId2, boolean allowAllRelations) throws Exception{
+		int lcs = lowestCommonSubsumer(frozen, frozen.getIndex(synsetId1), frozen.getIndex(synsetId2), allowAllRelations);
+		return lcs < 0 ? null : frozen.getId(lcs);
+	}
+
+	/**
+	 * Lowest common subsumer of two synsets of a frozen dictionary, working on
+	 * dense synset indices. Instead of comparing every pair of synsets from the
+	 * two components, the second component is marked in a bit set.
+	 * 
+	 * @param frozen the synset hierarchy
+	 * @param index1 first synset's dense index
+	 * @param index2 second synset's dense index
+	 * @param allowAllRelations flag that specifies whether all relations are
+	 * considered to be valid edges on only the hypernymy one
+	 * @return the lowest common subsumer's dense index, or -1 if there is none
+	 * @throws Exception if no relation is left to analyze after applying the
+	 * hypernymy restriction, if the flag indicates so
+	 */
+	public static int lowestCommonSubsumer(FrozenRoWordNet frozen, int index1, 
+			int index2, boolean allowAllRelations) throws Exception{
+		String[] filteredRelations = allowAllRelations ? null : new String[] {"hypernym", "instance_hypernym"};
+		int[] s1_desc = Operation.getPath(frozen, index1, index2, allowAllRelations, filteredRelations);
+		int[] s2_desc = Operation.getPath(frozen, index2, index1, allowAllRelations, filteredRelations);
+
+		BitSet s2_set = new BitSet(frozen.size());
+		for(int s2:s2_desc)
+			s2_set.set(s2);
+		for(int s1:s1_desc)
+			if(s2_set.get(s1))
+				return s1;
+		return -1;
+	}
 }
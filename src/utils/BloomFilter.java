@@ -0,0 +1,125 @@
+package utils;
+
+/**
+ * Blocked Bloom filter over strings: a set that may answer "present" for a
+ * string that was never added (with a low probability), but never answers
+ * "absent" for a string that was added.
+ * <p>
+ * The bits are split in blocks of 512 bits (eight longs, one cache line), and
+ * all the bits of a string are set in a single block chosen by its hash, so a
+ * lookup touches one cache line. With BITS_PER_KEY bits per expected string
+ * and PROBES bits per string, about 1% of the absent strings are reported as
+ * present while the filter holds at most its capacity.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class BloomFilter {
+
+	static final int	BITS_PER_KEY	= 10;
+	static final int	PROBES			= 6;
+
+	/**
+	 * The blocks, 8 longs each.
+	 */
+	final long[]		bits;
+	final int			blockMask;
+	final int			capacity;
+	int					size;
+
+	/**
+	 * Class constructor.
+	 *
+	 * @param capacity
+	 *            the number of strings the filter is sized for
+	 */
+	public BloomFilter(int capacity) {
+		this.capacity = Math.max(capacity, 1);
+		long wanted = (long) this.capacity * BITS_PER_KEY / 512 + 1;
+		int blocks = Integer.highestOneBit((int) Math.min(wanted, 1 << 24));
+		if (blocks < wanted)
+			blocks <<= 1;
+		this.bits = new long[blocks * 8];
+		this.blockMask = blocks - 1;
+	}
+
+	/**
+	 * Method that adds a string to the filter.
+	 *
+	 * @param s
+	 *            the string
+	 */
+	public void add(String s) {
+		long h = hash(s);
+		int block = ((int) (h >>> 40) & blockMask) << 3;
+		long probes = mix(h);
+		for (int i = 0; i < PROBES; i++, probes >>>= 9)
+			bits[block + (int) ((probes >>> 6) & 7)] |= 1L << (probes & 63);
+		size++;
+	}
+
+	/**
+	 * Method that checks whether a string may have been added to the filter.
+	 *
+	 * @param s
+	 *            the string
+	 * @return false if the string was certainly not added, true if it probably
+	 *         was
+	 */
+	public boolean mightContain(String s) {
+		long h = hash(s);
+		int block = ((int) (h >>> 40) & blockMask) << 3;
+		long probes = mix(h);
+		for (int i = 0; i < PROBES; i++, probes >>>= 9)
+			if ((bits[block + (int) ((probes >>> 6) & 7)] & (1L << (probes & 63))) == 0)
+				return false;
+		return true;
+	}
+
+	/**
+	 * @return the number of strings the filter is sized for
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * @return the number of add() calls
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the size of the bit array, in bytes
+	 */
+	public int getSizeInBytes() {
+		return bits.length * 8;
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of the characters of a string, finalized by mix().
+	 */
+	static long hash(String s) {
+		long h = 0xcbf29ce484222325L;
+		for (int i = 0; i < s.length(); i++) {
+			h ^= s.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * Finalization step of MurmurHash3, spreading every input bit over the
+	 * whole result.
+	 */
+	static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
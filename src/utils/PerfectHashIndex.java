@@ -0,0 +1,195 @@
+package utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Read-only map from distinct strings to their position in an array, built on
+ * a minimal perfect hash function (hash and displace): the n keys are hashed
+ * to n slots without collisions, so a lookup probes a single slot and then
+ * compares the key found there with the searched one.
+ * <p>
+ * The keys are spread over about n / 2 buckets by a seeded 64-bit hash. The
+ * buckets are placed from the largest to the smallest: for each one a
+ * displacement is searched such that the slots hash(key, displacement) of its
+ * keys are all free. Looking up a key then takes its bucket's displacement,
+ * computes the slot and checks the key stored at the slot's position. The
+ * only storage besides the keys array (which serves to verify the matches)
+ * are two int arrays, about six bytes per key, with no object per entry.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public final class PerfectHashIndex implements Serializable {
+	private static final long	serialVersionUID	= -1839420719318045187L;
+
+	/**
+	 * Average number of keys per bucket.
+	 */
+	static final int			BUCKET_SIZE			= 2;
+
+	/**
+	 * Displacements tried for a bucket before starting over with a new seed.
+	 */
+	static final int			MAX_DISPLACEMENT	= 1 << 24;
+
+	static final long			GOLDEN				= 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The keys, indexed by their position.
+	 */
+	final String[]				keys;
+
+	/**
+	 * Displacement of each bucket.
+	 */
+	final int[]					displacements;
+
+	/**
+	 * Position of the key hashed to each slot.
+	 */
+	final int[]					positions;
+
+	long						seed;
+
+	/**
+	 * Class constructor. The keys array is kept (not copied) and must not be
+	 * modified afterwards.
+	 *
+	 * @param keys
+	 *            distinct, non-null strings
+	 * @throws IllegalArgumentException
+	 *             if the keys are not distinct
+	 */
+	public PerfectHashIndex(String[] keys) {
+		this.keys = keys;
+		int n = keys.length;
+		this.displacements = new int[n / BUCKET_SIZE + 1];
+		this.positions = new int[n];
+		for (seed = GOLDEN;; seed += GOLDEN)
+			if (build())
+				return;
+	}
+
+	/**
+	 * Tries to place the keys with the current seed.
+	 *
+	 * @return false if a bucket could not be placed
+	 */
+	private boolean build() {
+		int n = keys.length, buckets = displacements.length;
+		long[] hashes = new long[n];
+		int[] bucketSizes = new int[buckets + 1];
+		for (int i = 0; i < n; i++) {
+			hashes[i] = hash(keys[i], seed);
+			bucketSizes[bucket(hashes[i], buckets) + 1]++;
+		}
+		// keys grouped by bucket, counting sort
+		int[] bucketStarts = new int[buckets + 1];
+		for (int b = 0; b < buckets; b++)
+			bucketStarts[b + 1] = bucketStarts[b] + bucketSizes[b + 1];
+		int[] members = new int[n], fill = Arrays.copyOf(bucketStarts, buckets);
+		for (int i = 0; i < n; i++)
+			members[fill[bucket(hashes[i], buckets)]++] = i;
+		// equal keys hash to the same slot whatever the displacement
+		for (int b = 0; b < buckets; b++)
+			for (int j = bucketStarts[b]; j < bucketStarts[b + 1]; j++)
+				for (int k = bucketStarts[b]; k < j; k++)
+					if (hashes[members[j]] == hashes[members[k]] && keys[members[j]].equals(keys[members[k]]))
+						throw new IllegalArgumentException("Duplicate key: " + keys[members[j]]);
+
+		// buckets ordered by decreasing size, counting sort again
+		int maxSize = 0;
+		for (int b = 0; b < buckets; b++)
+			maxSize = Math.max(maxSize, bucketStarts[b + 1] - bucketStarts[b]);
+		int[] sizeStarts = new int[maxSize + 2];
+		for (int b = 0; b < buckets; b++)
+			sizeStarts[maxSize - (bucketStarts[b + 1] - bucketStarts[b]) + 1]++;
+		for (int s = 0; s <= maxSize; s++)
+			sizeStarts[s + 1] += sizeStarts[s];
+		int[] order = new int[buckets];
+		for (int b = 0; b < buckets; b++)
+			order[sizeStarts[maxSize - (bucketStarts[b + 1] - bucketStarts[b])]++] = b;
+
+		Arrays.fill(positions, -1);
+		Arrays.fill(displacements, 0);
+		int[] slots = new int[maxSize];
+		for (int b : order) {
+			int from = bucketStarts[b], size = bucketStarts[b + 1] - from;
+			if (size == 0)
+				break;
+			int d = 0;
+			search: for (;; d++) {
+				if (d == MAX_DISPLACEMENT)
+					return false;
+				for (int j = 0; j < size; j++) {
+					int slot = slot(hashes[members[from + j]], d, n);
+					if (positions[slot] >= 0) {
+						for (int k = 0; k < j; k++)
+							positions[slots[k]] = -1;
+						continue search;
+					}
+					// claim the slot, so that two keys of the bucket do not
+					// share it
+					positions[slot] = members[from + j];
+					slots[j] = slot;
+				}
+				break;
+			}
+			displacements[b] = d;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the position of a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the key's position in the keys array, or -1 if it is not a key
+	 */
+	public int indexOf(String key) {
+		int n = positions.length;
+		if (key == null || n == 0)
+			return -1;
+		long h = hash(key, seed);
+		int position = positions[slot(h, displacements[bucket(h, displacements.length)], n)];
+		return keys[position].equals(key) ? position : -1;
+	}
+
+	/**
+	 * @return the number of keys
+	 */
+	public int size() {
+		return keys.length;
+	}
+
+	/**
+	 * @return the keys, indexed by their position
+	 */
+	public String[] getKeys() {
+		return keys;
+	}
+
+	private static int bucket(long h, int buckets) {
+		return (int) ((h >>> 1) % buckets);
+	}
+
+	private static int slot(long h, int displacement, int n) {
+		return (int) ((BloomFilter.mix(h + displacement * GOLDEN) >>> 1) % n);
+	}
+
+	/**
+	 * 64-bit FNV-1a hash of the characters of a string, started from a seed and
+	 * finalized by BloomFilter.mix().
+	 */
+	static long hash(String s, long seed) {
+		long h = 0xcbf29ce484222325L ^ seed;
+		for (int i = 0; i < s.length(); i++) {
+			h ^= s.charAt(i);
+			h *= 0x100000001b3L;
+		}
+		return BloomFilter.mix(h);
+	}
+}
@@ -0,0 +1,356 @@
+package utils;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable hash map with structural sharing (a hash array mapped trie).
+ * <p>
+ * with() and without() leave the map unchanged and return a new map that
+ * shares all the trie nodes except the ones on the path to the touched key,
+ * so an update copies at most seven small nodes whatever the size of the map,
+ * and any number of versions can be kept at the cost of their differences.
+ * Keys must not be null and must not change their hash code.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public final class PersistentHashMap<K, V> implements Iterable<Map.Entry<K, V>> {
+
+	@SuppressWarnings("rawtypes")
+	private static final PersistentHashMap	EMPTY	= new PersistentHashMap(null, 0);
+
+	private final Node						root;
+	private final int						size;
+
+	private PersistentHashMap(Node root, int size) {
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * @return the empty map
+	 */
+	@SuppressWarnings("unchecked")
+	public static <K, V> PersistentHashMap<K, V> empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * @return the number of entries in the map
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the value mapped to a key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the key's value, or null if the map does not contain the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(Object key) {
+		if (root == null)
+			return null;
+		Object value = root.find(0, key.hashCode(), key, NOT_FOUND);
+		return value == NOT_FOUND ? null : (V) value;
+	}
+
+	public boolean containsKey(Object key) {
+		return root != null && root.find(0, key.hashCode(), key, NOT_FOUND) != NOT_FOUND;
+	}
+
+	/**
+	 * Returns a map with the entries of this map, except that the given key is
+	 * mapped to the given value.
+	 *
+	 * @param key
+	 *            the key
+	 * @param value
+	 *            the key's new value
+	 * @return the new map, or this map if the key was already mapped to the
+	 *         value
+	 */
+	public PersistentHashMap<K, V> with(K key, V value) {
+		boolean[] added = new boolean[1];
+		Node node = (root == null ? BitmapNode.EMPTY : root).assoc(0, key.hashCode(), key, value, added);
+		if (node == root)
+			return this;
+		return new PersistentHashMap<K, V>(node, added[0] ? size + 1 : size);
+	}
+
+	/**
+	 * Returns a map with the entries of this map, except for the given key.
+	 *
+	 * @param key
+	 *            the key
+	 * @return the new map, or this map if it does not contain the key
+	 */
+	public PersistentHashMap<K, V> without(Object key) {
+		if (root == null)
+			return this;
+		Node node = root.without(0, key.hashCode(), key);
+		if (node == root)
+			return this;
+		return node == null ? PersistentHashMap.<K, V> empty() : new PersistentHashMap<K, V>(node, size - 1);
+	}
+
+	/**
+	 * Iterates over the entries of the map, in no particular order.
+	 */
+	@Override
+	public Iterator<Map.Entry<K, V>> iterator() {
+		return new EntryIterator<K, V>(root);
+	}
+
+	private static final Object	NOT_FOUND	= new Object();
+
+	private static int bit(int hash, int shift) {
+		return 1 << ((hash >>> shift) & 31);
+	}
+
+	private static Object[] copyAndSet(Object[] array, int i, Object value) {
+		Object[] ret = array.clone();
+		ret[i] = value;
+		return ret;
+	}
+
+	/**
+	 * Trie node. Its array holds (key, value) pairs; in bitmap nodes a null key
+	 * means that the value is a child node.
+	 */
+	private static abstract class Node {
+		final Object[]	array;
+
+		Node(Object[] array) {
+			this.array = array;
+		}
+
+		abstract Object find(int shift, int hash, Object key, Object notFound);
+
+		abstract Node assoc(int shift, int hash, Object key, Object value, boolean[] added);
+
+		/**
+		 * @return the node without the key, this node if the key is absent, or
+		 *         null if the node becomes empty
+		 */
+		abstract Node without(int shift, int hash, Object key);
+	}
+
+	private static final class BitmapNode extends Node {
+		static final BitmapNode	EMPTY	= new BitmapNode(0, new Object[0]);
+
+		final int				bitmap;
+
+		BitmapNode(int bitmap, Object[] array) {
+			super(array);
+			this.bitmap = bitmap;
+		}
+
+		private int index(int bit) {
+			return 2 * Integer.bitCount(bitmap & (bit - 1));
+		}
+
+		@Override
+		Object find(int shift, int hash, Object key, Object notFound) {
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0)
+				return notFound;
+			int i = index(bit);
+			Object k = array[i];
+			if (k == null)
+				return ((Node) array[i + 1]).find(shift + 5, hash, key, notFound);
+			return key.equals(k) ? array[i + 1] : notFound;
+		}
+
+		@Override
+		Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+			int bit = bit(hash, shift);
+			int i = index(bit);
+			if ((bitmap & bit) == 0) {
+				Object[] ret = new Object[array.length + 2];
+				System.arraycopy(array, 0, ret, 0, i);
+				ret[i] = key;
+				ret[i + 1] = value;
+				System.arraycopy(array, i, ret, i + 2, array.length - i);
+				added[0] = true;
+				return new BitmapNode(bitmap | bit, ret);
+			}
+
+			Object k = array[i], v = array[i + 1];
+			if (k == null) {
+				Node child = ((Node) v).assoc(shift + 5, hash, key, value, added);
+				return child == v ? this : new BitmapNode(bitmap, copyAndSet(array, i + 1, child));
+			}
+			if (key.equals(k))
+				return v == value ? this : new BitmapNode(bitmap, copyAndSet(array, i + 1, value));
+
+			added[0] = true;
+			Object[] ret = copyAndSet(array, i, null);
+			ret[i + 1] = pair(shift + 5, k, v, hash, key, value);
+			return new BitmapNode(bitmap, ret);
+		}
+
+		/**
+		 * Builds a node holding two entries whose hashes agree up to the given
+		 * shift.
+		 */
+		private static Node pair(int shift, Object k1, Object v1, int hash2, Object k2, Object v2) {
+			int hash1 = k1.hashCode();
+			if (hash1 == hash2)
+				return new CollisionNode(hash1, new Object[] { k1, v1, k2, v2 });
+			boolean[] added = new boolean[1];
+			return EMPTY.assoc(shift, hash1, k1, v1, added).assoc(shift, hash2, k2, v2, added);
+		}
+
+		@Override
+		Node without(int shift, int hash, Object key) {
+			int bit = bit(hash, shift);
+			if ((bitmap & bit) == 0)
+				return this;
+			int i = index(bit);
+			Object k = array[i];
+			if (k == null) {
+				Node child = ((Node) array[i + 1]).without(shift + 5, hash, key);
+				if (child == array[i + 1])
+					return this;
+				if (child != null)
+					return new BitmapNode(bitmap, copyAndSet(array, i + 1, child));
+			} else if (!key.equals(k))
+				return this;
+
+			if (bitmap == bit)
+				return null;
+			Object[] ret = new Object[array.length - 2];
+			System.arraycopy(array, 0, ret, 0, i);
+			System.arraycopy(array, i + 2, ret, i, array.length - i - 2);
+			return new BitmapNode(bitmap ^ bit, ret);
+		}
+	}
+
+	/**
+	 * Node holding entries whose keys have the very same hash code.
+	 */
+	private static final class CollisionNode extends Node {
+		final int	hash;
+
+		CollisionNode(int hash, Object[] array) {
+			super(array);
+			this.hash = hash;
+		}
+
+		private int indexOf(Object key) {
+			for (int i = 0; i < array.length; i += 2)
+				if (key.equals(array[i]))
+					return i;
+			return -1;
+		}
+
+		@Override
+		Object find(int shift, int hash, Object key, Object notFound) {
+			int i = indexOf(key);
+			return i < 0 ? notFound : array[i + 1];
+		}
+
+		@Override
+		Node assoc(int shift, int hash, Object key, Object value, boolean[] added) {
+			if (hash != this.hash)
+				return new BitmapNode(bit(this.hash, shift), new Object[] { null, this }).assoc(shift, hash, key,
+						value, added);
+			int i = indexOf(key);
+			if (i >= 0)
+				return array[i + 1] == value ? this : new CollisionNode(hash, copyAndSet(array, i + 1, value));
+			Object[] ret = new Object[array.length + 2];
+			System.arraycopy(array, 0, ret, 0, array.length);
+			ret[array.length] = key;
+			ret[array.length + 1] = value;
+			added[0] = true;
+			return new CollisionNode(hash, ret);
+		}
+
+		@Override
+		Node without(int shift, int hash, Object key) {
+			int i = indexOf(key);
+			if (i < 0)
+				return this;
+			if (array.length == 2)
+				return null;
+			Object[] ret = new Object[array.length - 2];
+			System.arraycopy(array, 0, ret, 0, i);
+			System.arraycopy(array, i + 2, ret, i, array.length - i - 2);
+			return new CollisionNode(hash, ret);
+		}
+	}
+
+	/**
+	 * Depth-first iterator over the trie, keeping the path to the current entry
+	 * on a stack. The trie has at most seven bitmap levels and a collision
+	 * level.
+	 */
+	private static final class EntryIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+		final Object[][]	arrays		= new Object[8][];
+		final int[]			positions	= new int[8];
+		int					depth		= -1;
+		Map.Entry<K, V>		next;
+
+		EntryIterator(Node root) {
+			if (root != null)
+				push(root.array);
+			advance();
+		}
+
+		private void push(Object[] array) {
+			depth++;
+			arrays[depth] = array;
+			positions[depth] = 0;
+		}
+
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			while (depth >= 0) {
+				Object[] array = arrays[depth];
+				int p = positions[depth];
+				if (p >= array.length) {
+					arrays[depth--] = null;
+					continue;
+				}
+				positions[depth] = p + 2;
+				if (array[p] == null)
+					push(((Node) array[p + 1]).array);
+				else {
+					next = new AbstractMap.SimpleImmutableEntry<K, V>((K) array[p], (V) array[p + 1]);
+					return;
+				}
+			}
+			next = null;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (next == null)
+				throw new NoSuchElementException();
+			Map.Entry<K, V> ret = next;
+			advance();
+			return ret;
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
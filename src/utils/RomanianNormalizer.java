@@ -0,0 +1,104 @@
+package utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+
+/**
+ * Helper class that folds the spelling variants of Romanian words to a
+ * common key, so that a word can be looked up whatever the way it was typed.
+ * <p>
+ * The text is brought to Unicode normal form C (precomposed letters), the
+ * s and t with cedilla (ş, ţ), still common in older texts, are replaced by
+ * the correct s and t with comma below (ș, ț), and the text is lower-cased.
+ * Optionally, the diacritics are stripped too (ă, â → a, î → i, ș → s,
+ * ț → t), to match text typed without them.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class RomanianNormalizer {
+
+	private static final Locale	ROMANIAN	= new Locale("ro");
+
+	/**
+	 * Method that normalizes a word: NFC, cedilla to comma below, lower case.
+	 *
+	 * @param s
+	 *            the text, may be null
+	 * @return the normalized text, or null if s is null
+	 */
+	public static String normalize(String s) {
+		return fold(s, false);
+	}
+
+	/**
+	 * Method that normalizes a word and strips its diacritics.
+	 *
+	 * @param s
+	 *            the text, may be null
+	 * @return the normalized text without diacritics, or null if s is null
+	 */
+	public static String strip(String s) {
+		return fold(s, true);
+	}
+
+	/**
+	 * Method that folds a word to its lookup key.
+	 *
+	 * @param s
+	 *            the text, may be null
+	 * @param stripDiacritics
+	 *            whether the diacritics are removed as well
+	 * @return the folded text, or null if s is null
+	 */
+	public static String fold(String s, boolean stripDiacritics) {
+		if (s == null)
+			return null;
+		if (isAscii(s))
+			return s.toLowerCase(ROMANIAN);
+
+		if (stripDiacritics) {
+			// decomposed, the diacritics are separate combining marks
+			String decomposed = Normalizer.normalize(s, Normalizer.Form.NFD);
+			StringBuilder sb = new StringBuilder(decomposed.length());
+			for (int i = 0; i < decomposed.length(); i++) {
+				char c = decomposed.charAt(i);
+				if (Character.getType(c) != Character.NON_SPACING_MARK)
+					sb.append(c);
+			}
+			return Normalizer.normalize(sb, Normalizer.Form.NFC).toLowerCase(ROMANIAN);
+		}
+
+		String composed = Normalizer.normalize(s, Normalizer.Form.NFC);
+		char[] chars = composed.toCharArray();
+		for (int i = 0; i < chars.length; i++)
+			chars[i] = foldCedilla(chars[i]);
+		return new String(chars).toLowerCase(ROMANIAN);
+	}
+
+	/**
+	 * Replaces s and t with cedilla by s and t with comma below.
+	 */
+	private static char foldCedilla(char c) {
+		switch (c) {
+			case '\u015F': // ş
+				return '\u0219'; // ș
+			case '\u015E': // Ş
+				return '\u0218'; // Ș
+			case '\u0163': // ţ
+				return '\u021B'; // ț
+			case '\u0162': // Ţ
+				return '\u021A'; // Ț
+			default:
+				return c;
+		}
+	}
+
+	private static boolean isAscii(String s) {
+		for (int i = 0; i < s.length(); i++)
+			if (s.charAt(i) >= 0x80)
+				return false;
+		return true;
+	}
+}
@@ -20,23 +20,10 @@ public class StopWord {
 	// TODO: expresii legate cu _ in stopword_ro.txt de inclus in procesare,
 	// acum nu fac match niciodata
 
-	private static HashSet<String> stopwords;
+	private static volatile HashSet<String> stopwords;
 
 	public static String[] removeStopWords(String[] tokens) throws IOException {
-
-		if (StopWord.stopwords == null) {
-			String location = "stopword_ro.txt";
-			InputStream in = StopWord.class.getClassLoader()
-					.getResourceAsStream(location);
-			if (in == null)
-				throw new IOException("Error: Cannot read <<" + location + ">>");
-			StopWord.stopwords = new HashSet<String>();
-			BufferedReader br = IO.openFile(in);
-			String line = "";
-			while ((line = br.readLine()) != null)
-				StopWord.stopwords.add(line.trim());
-		}
-
+		load();
 		ArrayList<String> temp = new ArrayList<>();
 		for (String token : tokens) {
 			if (!StopWord.stopwords.contains(token.toLowerCase()))
@@ -44,4 +31,34 @@ public class StopWord {
 		}
 		return (String[]) temp.toArray(new String[0]);
 	}
+
+	/**
+	 * Method that checks whether a word is a stop-word, ignoring its case.
+	 * 
+	 * @param word
+	 *            the word to be checked
+	 * @return true if the word is a stop-word, false otherwise
+	 * @throws IOException
+	 *             if the stop-word list cannot be read
+	 */
+	public static boolean isStopWord(String word) throws IOException {
+		load();
+		return StopWord.stopwords.contains(word.toLowerCase());
+	}
+
+	private static synchronized void load() throws IOException {
+		if (StopWord.stopwords != null)
+			return;
+		String location = "stopword_ro.txt";
+		InputStream in = StopWord.class.getClassLoader()
+				.getResourceAsStream(location);
+		if (in == null)
+			throw new IOException("Error: Cannot read <<" + location + ">>");
+		HashSet<String> words = new HashSet<String>();
+		BufferedReader br = IO.openFile(in);
+		String line = "";
+		while ((line = br.readLine()) != null)
+			words.add(line.trim());
+		StopWord.stopwords = words;
+	}
 }
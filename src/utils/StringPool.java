@@ -0,0 +1,95 @@
+package utils;
+
+import java.util.HashMap;
+
+/**
+ * Helper class that deduplicates String objects: every string passed to
+ * intern() is replaced by the first equal instance the pool has seen.
+ * <p>
+ * Unlike String.intern(), the pool is an ordinary object that can be dropped
+ * once loading is done, and it counts the duplicates it removed. The saved
+ * bytes are estimated for a 64 bit JVM with compressed references, with the
+ * characters stored as UTF-16.
+ * </p>
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public class StringPool {
+
+	HashMap<String, String> pool;
+	long duplicates;
+	long savedBytes;
+
+	public StringPool() {
+		pool = new HashMap<String, String>();
+	}
+
+	/**
+	 * Returns the pooled instance of a string, adding the string to the pool
+	 * if no equal string was seen before.
+	 *
+	 * @param s
+	 *            the string to be deduplicated, may be null
+	 * @return the pooled string equal to s, or null if s is null
+	 */
+	public String intern(String s) {
+		if (s == null)
+			return null;
+		String pooled = pool.get(s);
+		if (pooled == null) {
+			pool.put(s, s);
+			return s;
+		}
+		if (pooled != s) {
+			duplicates++;
+			savedBytes += estimateSize(s);
+		}
+		return pooled;
+	}
+
+	/**
+	 * @return the number of distinct strings in the pool
+	 */
+	public int size() {
+		return pool.size();
+	}
+
+	/**
+	 * @return the number of duplicate String objects replaced by a pooled
+	 *         instance
+	 */
+	public long getDuplicates() {
+		return duplicates;
+	}
+
+	/**
+	 * @return the estimated number of heap bytes no longer retained thanks to
+	 *         the replaced duplicates
+	 */
+	public long getSavedBytes() {
+		return savedBytes;
+	}
+
+	/**
+	 * Estimates the heap size of a String object, including its character
+	 * array.
+	 *
+	 * @param s
+	 *            the string
+	 * @return the estimated size in bytes
+	 */
+	public static long estimateSize(String s) {
+		return 24 + align(16 + 2L * s.length());
+	}
+
+	private static long align(long size) {
+		return (size + 7) & ~7L;
+	}
+
+	@Override
+	public String toString() {
+		return "String pool: " + size() + " distinct strings, " + duplicates + " duplicates removed, ~" + String
+				.format("%.2f", savedBytes / (1024.0 * 1024.0)) + " MB saved";
+	}
+}
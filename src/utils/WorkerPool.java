@@ -0,0 +1,29 @@
+package utils;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Holder of the ForkJoinPool that runs the parallel work of the library
+ * (transaction commits, statistics, PWN 2.0 projections), so that all of it
+ * shares a single set of worker threads. The pool is created on first use,
+ * with one worker per available processor.
+ *
+ * @author Stefan Dumitrescu
+ * @author Radu Petrut
+ */
+public final class WorkerPool {
+
+	private static ForkJoinPool	pool;
+
+	private WorkerPool() {
+	}
+
+	/**
+	 * @return the shared pool
+	 */
+	public static synchronized ForkJoinPool get() {
+		if (pool == null)
+			pool = new ForkJoinPool();
+		return pool;
+	}
+}